@@ -15,8 +15,6 @@ import org.springframework.stereotype.Component;
 @Component
 public class LoggingAspect {
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
-    private static final String USER_CACHE = "userCache";
-    private static final String ORDER_CACHE = "orderCache";
 
     @Pointcut(
             "within(com.example.demo..*)"
@@ -59,44 +57,4 @@ public class LoggingAspect {
                 joinPoint.getSignature().getDeclaringTypeName(),
                 joinPoint.getSignature().getName(), ex.getMessage());
     }
-
-    @After("execution(* com.example.demo.component.CustomCache.put*(..))")
-    public void linkedHashMapPut(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        String cacheName = methodName.toLowerCase().contains("user") ? USER_CACHE : ORDER_CACHE;
-        Object key = joinPoint.getArgs()[0];
-        Object value = joinPoint.getArgs()[1];
-        logger.debug("[CACHE] {} with key '{}' was saved in {}", value, key, cacheName);
-    }
-
-    @AfterReturning(
-            value = "execution(* com.example.demo.component.CustomCache.remove*(..))",
-            returning = "result"
-    )
-    public void linkedHashMapRemove(JoinPoint joinPoint, Object result) {
-        String methodName = joinPoint.getSignature().getName();
-        String cacheName = methodName.toLowerCase().contains("user") ? USER_CACHE : ORDER_CACHE;
-        Object key = joinPoint.getArgs()[0];
-        if (result != null) {
-            logger.debug("[CACHE] {} with key '{}' was removed from {}", result, key, cacheName);
-        } else {
-            logger.debug("[CACHE] No item with key '{}' was removed from {}", key, cacheName);
-        }
-    }
-
-    @AfterReturning(
-            value = "execution(* com.example.demo.component.CustomCache.getUser(..))"
-            + "|| execution(* com.example.demo.component.CustomCache.getOrder(..))",
-            returning = "result"
-    )
-    public void linkedHashMapGet(JoinPoint joinPoint, Object result) {
-        String methodName = joinPoint.getSignature().getName();
-        String cacheName = methodName.toLowerCase().contains("user") ? USER_CACHE : ORDER_CACHE;
-        Object key = joinPoint.getArgs()[0];
-        if (result != null) {
-            logger.debug("[CACHE] {} with key '{}' was received from {}", result, key, cacheName);
-        } else {
-            logger.debug("[CACHE] No item with key '{}' found in {}", key, cacheName);
-        }
-    }
 }
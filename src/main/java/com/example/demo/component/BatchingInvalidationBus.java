@@ -0,0 +1,86 @@
+package com.example.demo.component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public abstract class BatchingInvalidationBus implements InvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(BatchingInvalidationBus.class);
+
+    private final Set<Invalidation> pending = ConcurrentHashMap.newKeySet();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService flusher;
+
+    protected BatchingInvalidationBus(Duration flushInterval) {
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        pending.add(invalidation);
+    }
+
+    @Override
+    public void publish(Collection<Invalidation> invalidations) {
+        pending.addAll(invalidations);
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Invalidation> batch = new ArrayList<>();
+        Iterator<Invalidation> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+
+        try {
+            send(batch);
+        } catch (RuntimeException e) {
+            logger.warn("[CACHE] Failed to send {} invalidations, will retry: {}",
+                    batch.size(), e.getMessage());
+            pending.addAll(batch);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        flush();
+    }
+
+    protected abstract void send(List<Invalidation> batch);
+
+    protected void deliver(List<Invalidation> batch) {
+        listeners.forEach(listener -> listener.onInvalidation(batch));
+    }
+
+    protected void reset() {
+        listeners.forEach(Listener::onReset);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.component;
+
+import com.example.demo.util.Cache;
+import com.example.demo.util.OffHeapStore;
+import com.example.demo.util.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics implements MeterBinder {
+    private static final String CACHE_TAG = "cache";
+
+    private final CustomCache customCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindWeighted(registry, "users", customCache.getUserCache());
+        bindWeighted(registry, "orders", customCache.getOrderCache());
+        bindWeighted(registry, "order-pages", customCache.getOrderPageCache());
+        bind(registry, "missing-users", customCache.getMissingUserCache());
+        bind(registry, "missing-orders", customCache.getMissingOrderCache());
+        bind(registry, "order-owners", customCache.getOrderOwnerCache());
+
+        OffHeapStore<?> offHeapUsers = customCache.getOffHeapUsers();
+        if (offHeapUsers != null) {
+            Gauge.builder("cache.off-heap.size", offHeapUsers, OffHeapStore::size)
+                    .tag(CACHE_TAG, "users")
+                    .description("Number of entries in the off-heap tier")
+                    .register(registry);
+            Gauge.builder("cache.off-heap.used", offHeapUsers, OffHeapStore::usedBytes)
+                    .tag(CACHE_TAG, "users")
+                    .baseUnit(BaseUnits.BYTES)
+                    .description("Bytes of the off-heap segment in use")
+                    .register(registry);
+        }
+    }
+
+    private static void bind(MeterRegistry registry, String name, Cache<?, ?> cache) {
+        FunctionCounter.builder("cache.gets", cache, Cache::hitCount)
+                .tags(CACHE_TAG, name, "result", "hit")
+                .description("Number of lookups that found a cached value")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, Cache::missCount)
+                .tags(CACHE_TAG, name, "result", "miss")
+                .description("Number of lookups that found no cached value")
+                .register(registry);
+        FunctionCounter.builder("cache.loads", cache,
+                        c -> c.loadCount() - c.loadFailureCount())
+                .tags(CACHE_TAG, name, "result", "success")
+                .description("Number of loads that completed")
+                .register(registry);
+        FunctionCounter.builder("cache.loads", cache, Cache::loadFailureCount)
+                .tags(CACHE_TAG, name, "result", "failure")
+                .description("Number of loads that threw")
+                .register(registry);
+        FunctionCounter.builder("cache.loads.merged", cache, Cache::mergedLoadCount)
+                .tag(CACHE_TAG, name)
+                .description("Number of misses that joined a load already in flight")
+                .register(registry);
+        FunctionTimer.builder("cache.load.duration", cache, Cache::loadCount,
+                        Cache::totalLoadTime, TimeUnit.NANOSECONDS)
+                .tag(CACHE_TAG, name)
+                .description("Time spent loading values on a miss")
+                .register(registry);
+        for (RemovalCause cause : RemovalCause.values()) {
+            FunctionCounter.builder("cache.removals", cache, c -> c.removalCount(cause))
+                    .tags(CACHE_TAG, name, "cause", cause.name().toLowerCase(Locale.ROOT))
+                    .description("Number of entries removed from the cache, by cause")
+                    .register(registry);
+        }
+        Gauge.builder("cache.size", cache, Cache::estimatedSize)
+                .tag(CACHE_TAG, name)
+                .description("Number of entries in the cache")
+                .register(registry);
+    }
+
+    /**
+     * Also publishes the weight, which is in bytes only for caches built with a weigher.
+     */
+    private static void bindWeighted(MeterRegistry registry, String name, Cache<?, ?> cache) {
+        bind(registry, name, cache);
+        Gauge.builder("cache.weight", cache, Cache::weightedSize)
+                .tag(CACHE_TAG, name)
+                .baseUnit(BaseUnits.BYTES)
+                .description("Estimated heap bytes held by the cache")
+                .register(registry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.component;
+
+public enum CacheRegion {
+    USERS('u'),
+    ORDERS('o');
+
+    private final char code;
+
+    CacheRegion(char code) {
+        this.code = code;
+    }
+
+    public char getCode() {
+        return code;
+    }
+
+    public static CacheRegion fromCode(char code) {
+        for (CacheRegion region : values()) {
+            if (region.code == code) {
+                return region;
+            }
+        }
+        throw new IllegalArgumentException("Unknown cache region code: " + code);
+    }
+}
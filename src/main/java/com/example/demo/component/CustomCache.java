@@ -1,18 +1,77 @@
 package com.example.demo.component;
 
+import com.example.demo.config.CacheProperties;
 import com.example.demo.dto.OrderResponseDto;
 import com.example.demo.dto.UserResponseDto;
 import com.example.demo.util.Cache;
+import com.example.demo.util.OffHeapStore;
+import com.example.demo.util.RemovalCause;
+import com.example.demo.util.RemovalListener;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
 import lombok.Getter;
-import lombok.Setter;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Component
 @Getter
-@Setter
-public class CustomCache {
-    private final Cache<Long, UserResponseDto> userCache = new Cache<>();
-    private final Cache<Long, OrderResponseDto> orderCache = new Cache<>();
+public class CustomCache implements InvalidationBus.Listener {
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int USER_OVERHEAD = 128;
+    private static final int LIST_OVERHEAD = 16;
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache<Long, UserResponseDto> userCache;
+    private final Cache<Long, OrderResponseDto> orderCache;
+    private final Cache<OrderPageKey, Page<OrderResponseDto>> orderPageCache;
+    private final Cache<Long, Boolean> missingUserCache;
+    private final Cache<Long, Boolean> missingOrderCache;
+    private final Cache<Long, Long> orderOwnerCache;
+    private final OffHeapStore<UserResponseDto> offHeapUsers;
+    private final boolean writeThrough;
+    private final InvalidationBus invalidationBus;
+    private final ReadYourWrites readYourWrites;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong globalOrderGeneration = new AtomicLong();
+    private final AtomicLongArray userOrderGenerations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public CustomCache(
+            CacheProperties properties,
+            InvalidationBus invalidationBus,
+            ReadYourWrites readYourWrites
+    ) {
+        CacheProperties.OffHeapSpec offHeap = properties.offHeap();
+        this.offHeapUsers = offHeap != null && offHeap.enabled()
+                ? new OffHeapStore<>(offHeap.capacity().toBytes(), DtoCodecs.USER)
+                : null;
+        this.userCache = buildCache(properties.users(), CustomCache::weighUser,
+                offHeapUsers != null ? this::demoteUser : null);
+        this.orderCache = buildCache(properties.orders(), CustomCache::weighOrder, null);
+        this.orderPageCache = buildCache(properties.orderPages(), CustomCache::weighPage, null);
+        this.missingUserCache = buildMissingCache(properties.missing());
+        this.missingOrderCache = buildMissingCache(properties.missing());
+        this.orderOwnerCache = Cache.<Long, Long>builder()
+                .maximumSize(properties.orderOwnerIndexSize())
+                .build();
+        this.writeThrough = properties.writeThrough();
+        this.invalidationBus = invalidationBus;
+        this.readYourWrites = readYourWrites;
+        invalidationBus.subscribe(this);
+    }
 
     @SuppressWarnings("UnusedReturnValue")
     public UserResponseDto putUser(Long userId, UserResponseDto userResponseDto) {
@@ -23,6 +82,30 @@ public class CustomCache {
         return userCache.get(userId);
     }
 
+    public UserResponseDto getUser(Long userId, Function<Long, UserResponseDto> loader) {
+        if (missingUserCache.containsKey(userId)) {
+            return null;
+        }
+
+        long missingVersion = missingUserCache.version(userId);
+        UserResponseDto user = userCache.get(userId, key -> {
+            UserResponseDto demoted = promoteUser(key);
+            if (demoted != null) {
+                return demoted;
+            }
+
+            UserResponseDto loaded = readYourWrites.read(userKey(key), () -> loader.apply(key));
+            if (loaded != null) {
+                indexOrders(loaded);
+            }
+            return loaded;
+        });
+        if (user == null) {
+            missingUserCache.putIfVersion(userId, Boolean.TRUE, missingVersion);
+        }
+        return user;
+    }
+
     @SuppressWarnings("UnusedReturnValue")
     public UserResponseDto removeUser(Long userId) {
         return userCache.remove(userId);
@@ -32,6 +115,34 @@ public class CustomCache {
         return userCache.containsKey(userId);
     }
 
+    public void invalidateUser(Long userId) {
+        afterCommit(() -> {
+            evictUser(userId);
+            bumpOrderGenerations(userId);
+            publish(CacheRegion.USERS, userId);
+        });
+    }
+
+    /**
+     * Same as {@link #invalidateUser} for every id, with one synchronization and one publish
+     * for the whole batch.
+     */
+    public void invalidateUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> {
+            List<Invalidation> invalidations = new ArrayList<>();
+            for (Long userId : userIds) {
+                evictUser(userId);
+                bumpOrderGenerations(userId);
+                invalidations.add(new Invalidation(nodeId, CacheRegion.USERS, userId));
+            }
+            invalidationBus.publish(invalidations);
+        });
+    }
+
     @SuppressWarnings("UnusedReturnValue")
     public OrderResponseDto putOrder(Long orderId, OrderResponseDto orderResponseDto) {
         return orderCache.put(orderId, orderResponseDto);
@@ -41,6 +152,20 @@ public class CustomCache {
         return orderCache.get(orderId);
     }
 
+    public OrderResponseDto getOrder(Long orderId, Function<Long, OrderResponseDto> loader) {
+        if (missingOrderCache.containsKey(orderId)) {
+            return null;
+        }
+
+        long missingVersion = missingOrderCache.version(orderId);
+        OrderResponseDto order = orderCache.get(orderId, key ->
+                readYourWrites.read(orderKey(key), () -> loader.apply(key)));
+        if (order == null) {
+            missingOrderCache.putIfVersion(orderId, Boolean.TRUE, missingVersion);
+        }
+        return order;
+    }
+
     @SuppressWarnings("UnusedReturnValue")
     public OrderResponseDto removeOrder(Long orderId) {
         return orderCache.remove(orderId);
@@ -49,4 +174,362 @@ public class CustomCache {
     public boolean containsOrder(Long orderId) {
         return orderCache.containsKey(orderId);
     }
+
+    public void invalidateOrder(Long orderId) {
+        afterCommit(() -> {
+            evictOrder(orderId);
+            bumpGlobalOrderGeneration();
+            publish(CacheRegion.ORDERS, orderId);
+        });
+    }
+
+    public Page<OrderResponseDto> getOrdersPage(
+            Long userId, int page, int size, Supplier<Page<OrderResponseDto>> loader
+    ) {
+        long generation = userId == null
+                ? globalOrderGeneration.get()
+                : userOrderGenerations.get(generationStripe(userId));
+        return orderPageCache.get(new OrderPageKey(userId, page, size, generation),
+                key -> readYourWrites.read(pageKey(userId), loader));
+    }
+
+    public Long getOrderOwner(Long orderId) {
+        return orderOwnerCache.get(orderId);
+    }
+
+    public void writeOrder(Long userId, long userVersion, OrderResponseDto order) {
+        writeOrders(userId, userVersion, List.of(order));
+    }
+
+    /**
+     * Patches the cached orders and their owner after commit. Callbacks of concurrent
+     * transactions may run in either order, so a cached value is only replaced by a strictly
+     * newer version; otherwise it is invalidated. {@code userVersion} is the owner's version
+     * after the write, which order writes increment.
+     */
+    public void writeOrders(Long userId, long userVersion, List<OrderResponseDto> orders) {
+        afterCommit(() -> {
+            readYourWrites.onKeyChanged(userKey(userId));
+            for (OrderResponseDto order : orders) {
+                readYourWrites.onKeyChanged(orderKey(order.getId()));
+                missingOrderCache.invalidate(order.getId());
+                orderOwnerCache.put(order.getId(), userId);
+            }
+            dropOffHeapUser(userId);
+            bumpOrderGenerations(userId);
+
+            if (writeThrough) {
+                orders.forEach(order -> orderCache.update(order.getId(),
+                        cached -> isNewer(order.getVersion(), cached.getVersion())
+                                ? order
+                                : null));
+                userCache.update(userId, cached -> isNewer(userVersion, cached.getVersion())
+                        ? withOrders(cached, orders, userVersion)
+                        : null);
+            } else {
+                orders.forEach(order -> orderCache.invalidate(order.getId()));
+                userCache.invalidate(userId);
+            }
+            orders.forEach(order -> publish(CacheRegion.ORDERS, order.getId()));
+            publish(CacheRegion.USERS, userId);
+        });
+    }
+
+    public void deleteOrder(Long userId, long userVersion, Long orderId) {
+        afterCommit(() -> {
+            readYourWrites.onKeyChanged(userKey(userId));
+            readYourWrites.onKeyChanged(orderKey(orderId));
+            orderCache.invalidate(orderId);
+            orderOwnerCache.remove(orderId);
+            dropOffHeapUser(userId);
+            bumpOrderGenerations(userId);
+
+            if (writeThrough) {
+                userCache.update(userId, cached -> isNewer(userVersion, cached.getVersion())
+                        ? withoutOrder(cached, orderId, userVersion)
+                        : null);
+            } else {
+                userCache.invalidate(userId);
+            }
+            publish(CacheRegion.ORDERS, orderId);
+            publish(CacheRegion.USERS, userId);
+        });
+    }
+
+    @Override
+    public void onInvalidation(List<Invalidation> batch) {
+        for (Invalidation invalidation : batch) {
+            if (nodeId.equals(invalidation.origin())) {
+                continue;
+            }
+
+            switch (invalidation.region()) {
+                case USERS -> {
+                    evictUser(invalidation.key());
+                    bumpOrderGenerations(invalidation.key());
+                }
+                case ORDERS -> {
+                    Long ownerId = orderOwnerCache.get(invalidation.key());
+                    if (ownerId != null) {
+                        evictUser(ownerId);
+                        bumpOrderGenerations(ownerId);
+                    }
+                    evictOrder(invalidation.key());
+                    bumpGlobalOrderGeneration();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onReset() {
+        userCache.invalidateAll();
+        orderCache.invalidateAll();
+        orderPageCache.invalidateAll();
+        missingUserCache.invalidateAll();
+        missingOrderCache.invalidateAll();
+        orderOwnerCache.invalidateAll();
+        if (offHeapUsers != null) {
+            offHeapUsers.clear();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (offHeapUsers != null) {
+            offHeapUsers.close();
+        }
+    }
+
+    public List<Long> getHottestUserIds(int limit) {
+        return userCache.hottestKeys(limit);
+    }
+
+    public List<Long> getHottestOrderIds(int limit) {
+        return orderCache.hottestKeys(limit);
+    }
+
+    public int warmUsers(List<Long> userIds, Function<List<Long>, List<UserResponseDto>> loader) {
+        List<UserResponseDto> warmed = warm(userCache, userIds, loader, UserResponseDto::getId);
+        warmed.forEach(this::indexOrders);
+        return warmed.size();
+    }
+
+    public int warmOrders(
+            List<Long> orderIds, Function<List<Long>, List<OrderResponseDto>> loader
+    ) {
+        return warm(orderCache, orderIds, loader, OrderResponseDto::getId).size();
+    }
+
+    public long getMergedLoadCount() {
+        return userCache.mergedLoadCount() + orderCache.mergedLoadCount();
+    }
+
+    private void evictUser(Long userId) {
+        readYourWrites.onKeyChanged(userKey(userId));
+        userCache.invalidate(userId);
+        missingUserCache.invalidate(userId);
+        dropOffHeapUser(userId);
+    }
+
+    private void bumpOrderGenerations(Long userId) {
+        readYourWrites.onKeyChanged(pageKey(userId));
+        bumpGlobalOrderGeneration();
+        userOrderGenerations.incrementAndGet(generationStripe(userId));
+    }
+
+    private void bumpGlobalOrderGeneration() {
+        readYourWrites.onKeyChanged(pageKey(null));
+        globalOrderGeneration.incrementAndGet();
+    }
+
+    private void indexOrders(UserResponseDto user) {
+        if (user.getOrders() != null) {
+            user.getOrders().forEach(order -> orderOwnerCache.put(order.getId(), user.getId()));
+        }
+    }
+
+    private void demoteUser(Long userId, UserResponseDto user, long version, RemovalCause cause) {
+        if (cause != RemovalCause.SIZE || userCache.version(userId) != version) {
+            return;
+        }
+
+        offHeapUsers.put(userId, user);
+        if (userCache.version(userId) != version) {
+            offHeapUsers.remove(userId);
+        }
+    }
+
+    private UserResponseDto promoteUser(Long userId) {
+        if (offHeapUsers == null) {
+            return null;
+        }
+
+        UserResponseDto user = offHeapUsers.get(userId);
+        if (user != null) {
+            offHeapUsers.remove(userId);
+        }
+        return user;
+    }
+
+    private void dropOffHeapUser(Long userId) {
+        if (offHeapUsers != null) {
+            offHeapUsers.remove(userId);
+        }
+    }
+
+    private void evictOrder(Long orderId) {
+        readYourWrites.onKeyChanged(orderKey(orderId));
+        orderCache.invalidate(orderId);
+        missingOrderCache.invalidate(orderId);
+        orderOwnerCache.remove(orderId);
+    }
+
+    private void publish(CacheRegion region, Long key) {
+        invalidationBus.publish(new Invalidation(nodeId, region, key));
+    }
+
+    private static <V> List<V> warm(
+            Cache<Long, V> cache,
+            List<Long> ids,
+            Function<List<Long>, List<V>> loader,
+            Function<V, Long> idOf
+    ) {
+        Map<Long, Long> versions = new HashMap<>();
+        ids.forEach(id -> versions.put(id, cache.version(id)));
+
+        List<V> warmed = new ArrayList<>();
+        for (V value : loader.apply(ids)) {
+            Long id = idOf.apply(value);
+            Long version = versions.get(id);
+            if (version != null && !cache.containsKey(id)
+                    && cache.putIfVersion(id, value, version)) {
+                warmed.add(value);
+            }
+        }
+        return warmed;
+    }
+
+    private static void afterCommit(Runnable invalidation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+
+    private static boolean isNewer(Long version, Long cachedVersion) {
+        return version != null && cachedVersion != null && version > cachedVersion;
+    }
+
+    private static UserResponseDto withOrders(
+            UserResponseDto user, List<OrderResponseDto> written, long version
+    ) {
+        Map<Long, OrderResponseDto> pending = new LinkedHashMap<>();
+        written.forEach(order -> pending.put(order.getId(), order));
+
+        List<OrderResponseDto> orders = new ArrayList<>();
+        if (user.getOrders() != null) {
+            for (OrderResponseDto existing : user.getOrders()) {
+                OrderResponseDto replacement = pending.remove(existing.getId());
+                orders.add(replacement != null ? replacement : existing);
+            }
+        }
+        orders.addAll(pending.values());
+        // Loads list orders by id, and pooled ids from different nodes interleave.
+        orders.sort(Comparator.comparing(OrderResponseDto::getId));
+        return copyWithOrders(user, orders, version);
+    }
+
+    private static UserResponseDto withoutOrder(UserResponseDto user, Long orderId, long version) {
+        List<OrderResponseDto> orders = user.getOrders() == null
+                ? null
+                : user.getOrders().stream()
+                        .filter(order -> !order.getId().equals(orderId))
+                        .toList();
+        return copyWithOrders(user, orders, version);
+    }
+
+    private static UserResponseDto copyWithOrders(
+            UserResponseDto user, List<OrderResponseDto> orders, long version
+    ) {
+        UserResponseDto copy = new UserResponseDto();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setOrders(orders);
+        copy.setVersion(version);
+        return copy;
+    }
+
+    private static <K, V> Cache<K, V> buildCache(
+            CacheProperties.Spec spec,
+            ToIntBiFunction<K, V> weigher,
+            RemovalListener<K, V> removalListener
+    ) {
+        return Cache.<K, V>builder()
+                .maximumSize(spec.maximumSize())
+                .maximumWeight(spec.maximumWeight().toBytes())
+                .weigher(weigher)
+                .expireAfterWrite(spec.expireAfterWrite())
+                .expireAfterAccess(spec.expireAfterAccess())
+                .removalListener(removalListener)
+                .build();
+    }
+
+    private static Cache<Long, Boolean> buildMissingCache(CacheProperties.MissingSpec spec) {
+        return Cache.<Long, Boolean>builder()
+                .maximumSize(spec.maximumSize())
+                .expireAfterWrite(spec.expireAfterWrite())
+                .build();
+    }
+
+    private static int weighUser(Long userId, UserResponseDto user) {
+        int weight = USER_OVERHEAD + 2 * (length(user.getName()) + length(user.getEmail()));
+        if (user.getOrders() != null) {
+            weight += LIST_OVERHEAD;
+            for (OrderResponseDto order : user.getOrders()) {
+                weight += weighOrder(order.getId(), order);
+            }
+        }
+        return weight;
+    }
+
+    private static int weighOrder(Long orderId, OrderResponseDto order) {
+        return ENTRY_OVERHEAD + 2 * length(order.getDescription());
+    }
+
+    private static int weighPage(OrderPageKey key, Page<OrderResponseDto> page) {
+        int weight = ENTRY_OVERHEAD + LIST_OVERHEAD;
+        for (OrderResponseDto order : page.getContent()) {
+            weight += weighOrder(order.getId(), order);
+        }
+        return weight;
+    }
+
+    private static String userKey(Long userId) {
+        return "users:" + userId;
+    }
+
+    private static String orderKey(Long orderId) {
+        return "orders:" + orderId;
+    }
+
+    private static String pageKey(Long userId) {
+        return userId == null ? "order-pages" : "order-pages:" + userId;
+    }
+
+    private static int generationStripe(Long userId) {
+        return Long.hashCode(userId) & (GENERATION_STRIPES - 1);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
 }
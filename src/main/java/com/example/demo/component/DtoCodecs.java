@@ -0,0 +1,95 @@
+package com.example.demo.component;
+
+import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.UserResponseDto;
+import com.example.demo.util.BinaryCodec;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class DtoCodecs {
+    public static final BinaryCodec<OrderResponseDto> ORDER = new BinaryCodec<>() {
+        @Override
+        public void write(DataOutput out, OrderResponseDto order) throws IOException {
+            writeLong(out, order.getId());
+            writeString(out, order.getDescription());
+            out.writeBoolean(order.getPrice() != null);
+            if (order.getPrice() != null) {
+                out.writeDouble(order.getPrice());
+            }
+            writeLong(out, order.getVersion());
+        }
+
+        @Override
+        public OrderResponseDto read(DataInput in) throws IOException {
+            OrderResponseDto order = new OrderResponseDto();
+            order.setId(readLong(in));
+            order.setDescription(readString(in));
+            order.setPrice(in.readBoolean() ? in.readDouble() : null);
+            order.setVersion(readLong(in));
+            return order;
+        }
+    };
+
+    public static final BinaryCodec<UserResponseDto> USER = new BinaryCodec<>() {
+        @Override
+        public void write(DataOutput out, UserResponseDto user) throws IOException {
+            writeLong(out, user.getId());
+            writeString(out, user.getName());
+            writeString(out, user.getEmail());
+            writeLong(out, user.getVersion());
+            if (user.getOrders() == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(user.getOrders().size());
+            for (OrderResponseDto order : user.getOrders()) {
+                ORDER.write(out, order);
+            }
+        }
+
+        @Override
+        public UserResponseDto read(DataInput in) throws IOException {
+            UserResponseDto user = new UserResponseDto();
+            user.setId(readLong(in));
+            user.setName(readString(in));
+            user.setEmail(readString(in));
+            user.setVersion(readLong(in));
+            int count = in.readInt();
+            if (count >= 0) {
+                List<OrderResponseDto> orders = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    orders.add(ORDER.read(in));
+                }
+                user.setOrders(orders);
+            }
+            return user;
+        }
+    };
+
+    private DtoCodecs() {}
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
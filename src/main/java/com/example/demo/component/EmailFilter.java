@@ -0,0 +1,66 @@
+package com.example.demo.component;
+
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.BloomFilter;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Bloom filter of the emails stored in {@code users}. A negative answer means the email is
+ * certainly not taken on this node's view; emails registered through other nodes may still be
+ * missing, so the unique constraint remains the final guard. Until the startup scan finishes
+ * every email is reported as possibly taken.
+ */
+@Component
+public class EmailFilter {
+    private static final Logger logger = LoggerFactory.getLogger(EmailFilter.class);
+
+    private final UserRepository userRepository;
+    private final BloomFilter filter;
+    private volatile boolean ready;
+
+    public EmailFilter(
+            UserRepository userRepository,
+            @Value("${users.email-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${users.email-filter.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.userRepository = userRepository;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        long count = 0;
+        try (Stream<String> emails = userRepository.streamEmails()) {
+            for (String email : (Iterable<String>) emails::iterator) {
+                filter.put(email);
+                count++;
+            }
+        }
+        ready = true;
+        logger.info("[USERS] Email filter built from {} emails ({} bits, {} hashes)",
+                count, filter.bitSize(), filter.hashFunctions());
+    }
+
+    public boolean mightContain(String email) {
+        if (email == null) {
+            return false;
+        }
+        return !ready || filter.mightContain(email);
+    }
+
+    public void put(String email) {
+        if (email != null) {
+            filter.put(email);
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.example.demo.component;
+
+public record Invalidation(String origin, CacheRegion region, Long key) {}
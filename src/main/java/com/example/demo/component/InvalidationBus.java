@@ -0,0 +1,18 @@
+package com.example.demo.component;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface InvalidationBus {
+    void publish(Invalidation invalidation);
+
+    void publish(Collection<Invalidation> invalidations);
+
+    void subscribe(Listener listener);
+
+    interface Listener {
+        void onInvalidation(List<Invalidation> batch);
+
+        void onReset();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Content-addressed store of generated log extracts, bounded by a disk quota. Artifacts are
+ * written to a temporary file and published with an atomic move, so a key either resolves to
+ * a complete extract or to nothing. Least recently used artifacts are deleted once the quota is
+ * exceeded; the access order survives restarts through the files' modification times.
+ */
+@Component
+public class LogExtractCache {
+    private static final Logger logger = LoggerFactory.getLogger(LogExtractCache.class);
+    private static final String EXTENSION = ".log";
+
+    private final Path directory;
+    private final long maximumBytes;
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    public LogExtractCache(
+            @Value("${logs.extracts.directory:logs/extracts}") Path directory,
+            @Value("${logs.extracts.max-size:1GB}") DataSize maximumSize
+    ) {
+        this.directory = directory;
+        this.maximumBytes = maximumSize.toBytes();
+    }
+
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> artifacts = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (path.getFileName().toString().endsWith(EXTENSION)) {
+                    artifacts.add(path);
+                } else {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+
+        artifacts.sort(Comparator.comparing(LogExtractCache::modifiedTime));
+        for (Path path : artifacts) {
+            long size = Files.size(path);
+            sizes.put(keyOf(path), size);
+            usedBytes += size;
+        }
+        evict(null);
+    }
+
+    public Path path(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    public Path newTempFile(String key) throws IOException {
+        return Files.createTempFile(directory, key, ".tmp");
+    }
+
+    /**
+     * Marks {@code key} as just used. Returns {@code false} when there is no artifact for it,
+     * for instance because it was evicted.
+     */
+    public synchronized boolean touch(String key) {
+        if (sizes.get(key) == null) {
+            return false;
+        }
+
+        try {
+            Files.setLastModifiedTime(path(key), FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (IOException e) {
+            usedBytes -= sizes.remove(key);
+            return false;
+        }
+    }
+
+    public synchronized Path publish(String key, Path tempFile) throws IOException {
+        Path path = path(key);
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Long previous = sizes.put(key, Files.size(path));
+        usedBytes += sizes.get(key) - (previous != null ? previous : 0);
+        evict(key);
+        return path;
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Long>> iterator = sizes.entrySet().iterator();
+        while (usedBytes > maximumBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+
+            try {
+                Files.deleteIfExists(path(eldest.getKey()));
+            } catch (IOException e) {
+                logger.warn("[LOGS] Could not delete extract {}: {}",
+                        eldest.getKey(), e.getMessage());
+                continue;
+            }
+            usedBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    private static String keyOf(Path path) {
+        String name = path.getFileName().toString();
+        return name.substring(0, name.length() - EXTENSION.length());
+    }
+
+    private static FileTime modifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
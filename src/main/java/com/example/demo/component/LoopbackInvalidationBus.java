@@ -0,0 +1,23 @@
+package com.example.demo.component;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.bus", havingValue = "loopback",
+        matchIfMissing = true)
+public class LoopbackInvalidationBus extends BatchingInvalidationBus {
+    public LoopbackInvalidationBus(
+            @Value("${cache.invalidation.flush-interval:50ms}") Duration flushInterval
+    ) {
+        super(flushInterval);
+    }
+
+    @Override
+    protected void send(List<Invalidation> batch) {
+        deliver(batch);
+    }
+}
@@ -0,0 +1,3 @@
+package com.example.demo.component;
+
+public record OrderPageKey(Long userId, int page, int size, long generation) {}
@@ -0,0 +1,151 @@
+package com.example.demo.component;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.bus", havingValue = "postgres")
+public class PostgresInvalidationBus extends BatchingInvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+    private static final int MAX_PAYLOAD_LENGTH = 7000;
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String channel;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresInvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            @Value("${cache.invalidation.channel:cache_invalidation}") String channel,
+            @Value("${cache.invalidation.flush-interval:50ms}") Duration flushInterval
+    ) {
+        super(flushInterval);
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    protected void send(List<Invalidation> batch) {
+        for (String payload : encode(batch)) {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, channel, payload);
+        }
+    }
+
+    @SuppressWarnings("checkstyle:CatchParameterName")
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (connectedBefore) {
+                    reset();
+                }
+                connectedBefore = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications =
+                            pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(decode(notification.getParameter()));
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("[CACHE] Invalidation listener lost its connection: {}",
+                        e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    static List<String> encode(List<Invalidation> batch) {
+        List<String> payloads = new ArrayList<>();
+        Map<String, List<Invalidation>> byOrigin = batch.stream()
+                .collect(Collectors.groupingBy(Invalidation::origin, LinkedHashMap::new,
+                        Collectors.toList()));
+
+        byOrigin.forEach((origin, invalidations) -> {
+            StringBuilder payload = new StringBuilder(origin);
+            for (Invalidation invalidation : invalidations) {
+                String entry = "|" + invalidation.region().getCode() + invalidation.key();
+                if (payload.length() + entry.length() > MAX_PAYLOAD_LENGTH) {
+                    payloads.add(payload.toString());
+                    payload = new StringBuilder(origin);
+                }
+                payload.append(entry);
+            }
+            payloads.add(payload.toString());
+        });
+
+        return payloads;
+    }
+
+    static List<Invalidation> decode(String payload) {
+        String[] parts = payload.split("\\|");
+        List<Invalidation> batch = new ArrayList<>(parts.length - 1);
+        for (int i = 1; i < parts.length; i++) {
+            batch.add(new Invalidation(parts[0], CacheRegion.fromCode(parts[i].charAt(0)),
+                    Long.parseLong(parts[i].substring(1))));
+        }
+        return batch;
+    }
+}
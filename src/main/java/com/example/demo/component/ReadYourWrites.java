@@ -0,0 +1,89 @@
+package com.example.demo.component;
+
+import com.example.demo.config.RoutingProperties;
+import com.example.demo.util.Cache;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers which clients committed a write recently so that their reads keep going to the
+ * primary until the replicas had time to catch up. Keys of shared caches are tracked the same
+ * way: a key that changed less than the tolerated replica lag ago is reloaded from the primary,
+ * whoever the reader is, so that a lagging replica cannot put the old value back into the cache.
+ */
+@Component
+public class ReadYourWrites {
+    private final Cache<String, Boolean> recentWriters;
+    private final Cache<String, Boolean> recentKeys;
+    private final ThreadLocal<String> currentClient = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> primaryRead = new ThreadLocal<>();
+
+    public ReadYourWrites(RoutingProperties properties) {
+        this.recentWriters = Cache.<String, Boolean>builder()
+                .maximumSize(properties.maximumTrackedClients())
+                .expireAfterWrite(properties.readYourWritesWindow())
+                .build();
+        this.recentKeys = Cache.<String, Boolean>builder()
+                .maximumSize(properties.maximumTrackedClients())
+                .expireAfterWrite(properties.maxLag().plus(properties.lagCheckInterval()))
+                .build();
+    }
+
+    public void bind(String clientId) {
+        currentClient.set(clientId);
+    }
+
+    public void unbind() {
+        currentClient.remove();
+    }
+
+    public boolean requiresPrimary() {
+        if (primaryRead.get() != null) {
+            return true;
+        }
+        String clientId = currentClient.get();
+        return clientId != null && recentWriters.containsKey(clientId);
+    }
+
+    /**
+     * Marks {@code key} as changed. A replica lagging up to the allowed maximum, plus the time
+     * until the next lag check notices it, may still serve the old value, so reads of the key
+     * go to the primary for that long.
+     */
+    public void onKeyChanged(String key) {
+        recentKeys.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * Runs {@code read} against the primary if {@code key} changed recently, and as usual
+     * otherwise.
+     */
+    public <T> T read(String key, Supplier<T> read) {
+        if (primaryRead.get() != null || !recentKeys.containsKey(key)) {
+            return read.get();
+        }
+
+        primaryRead.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            primaryRead.remove();
+        }
+    }
+
+    public void onWriteTransaction() {
+        String clientId = currentClient.get();
+        if (clientId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(clientId, Boolean.TRUE);
+            }
+        });
+    }
+}
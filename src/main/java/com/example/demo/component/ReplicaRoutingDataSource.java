@@ -0,0 +1,154 @@
+package com.example.demo.component;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to a replica that is within the allowed lag and everything
+ * else to the primary. Must sit behind a {@code LazyConnectionDataSourceProxy} so that the
+ * connection is only picked once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery()
+                    OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(
+                    EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END::bigint""";
+
+    private final Replica[] replicas;
+    private final long maxLagMillis;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(
+            DataSource primary,
+            Map<String, DataSource> replicas,
+            ReadYourWrites readYourWrites,
+            Duration maxLag,
+            Duration lagCheckInterval
+    ) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toArray(Replica[]::new);
+        this.maxLagMillis = maxLag.toMillis();
+        this.readYourWrites = readYourWrites;
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.replicas.length > 0) {
+            long interval = lagCheckInterval.toMillis();
+            lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWrites.onWriteTransaction();
+            }
+            return PRIMARY;
+        }
+        if (replicas.length == 0 || readYourWrites.requiresPrimary()) {
+            return PRIMARY;
+        }
+
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[(start + i) % replicas.length];
+            if (replica.available) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean available;
+            try {
+                long lag = measureLag(replica.dataSource);
+                available = lag <= maxLagMillis;
+                if (!available && replica.available) {
+                    logger.warn("[ROUTING] Replica {} is {} ms behind, reading from primary",
+                            replica.name, lag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                available = false;
+                if (replica.available) {
+                    logger.warn("[ROUTING] Replica {} is unreachable, reading from primary: {}",
+                            replica.name, e.getMessage());
+                }
+            }
+            if (available && !replica.available) {
+                logger.info("[ROUTING] Replica {} is serving reads", replica.name);
+            }
+            replica.available = available;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lagChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("[ROUTING] Failed to close replica {}: {}",
+                            replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    long measureLag(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.component;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate keeps its second-level cache consistent only for writes made on this node, so
+ * entries changed by other nodes are evicted when their invalidations arrive on the bus.
+ */
+@Component
+public class SecondLevelCacheInvalidator implements InvalidationBus.Listener {
+    private static final String USER_ORDERS_ROLE = User.class.getName() + ".orders";
+
+    private final Cache cache;
+    private final String nodeId;
+
+    public SecondLevelCacheInvalidator(
+            EntityManagerFactory entityManagerFactory,
+            InvalidationBus invalidationBus,
+            CustomCache customCache
+    ) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.nodeId = customCache.getNodeId();
+        invalidationBus.subscribe(this);
+    }
+
+    @Override
+    public void onInvalidation(List<Invalidation> batch) {
+        boolean evictQueries = false;
+        for (Invalidation invalidation : batch) {
+            if (nodeId.equals(invalidation.origin())) {
+                continue;
+            }
+
+            switch (invalidation.region()) {
+                case USERS -> {
+                    cache.evictEntityData(User.class, invalidation.key());
+                    cache.evictCollectionData(USER_ORDERS_ROLE, invalidation.key());
+                }
+                case ORDERS -> cache.evictEntityData(Order.class, invalidation.key());
+            }
+            evictQueries = true;
+        }
+
+        if (evictQueries) {
+            cache.evictQueryRegions();
+        }
+    }
+
+    @Override
+    public void onReset() {
+        cache.evictAllRegions();
+    }
+}
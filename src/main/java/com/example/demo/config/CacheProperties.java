@@ -0,0 +1,31 @@
+package com.example.demo.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "cache")
+public record CacheProperties(
+        Spec users,
+        Spec orders,
+        Spec orderPages,
+        MissingSpec missing,
+        long orderOwnerIndexSize,
+        boolean writeThrough,
+        OffHeapSpec offHeap,
+        SnapshotSpec snapshot
+) {
+    public record Spec(
+            long maximumSize,
+            DataSize maximumWeight,
+            Duration expireAfterWrite,
+            Duration expireAfterAccess
+    ) {}
+
+    public record MissingSpec(long maximumSize, Duration expireAfterWrite) {}
+
+    public record OffHeapSpec(boolean enabled, DataSize capacity) {}
+
+    public record SnapshotSpec(boolean enabled, Path path, int maximumKeys, int batchSize) {}
+}
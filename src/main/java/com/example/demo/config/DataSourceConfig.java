@@ -0,0 +1,80 @@
+package com.example.demo.config;
+
+import com.example.demo.component.ReadYourWrites;
+import com.example.demo.component.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class DataSourceConfig {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties dataSourceProperties,
+            RoutingProperties routingProperties,
+            ReadYourWrites readYourWrites
+    ) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<RoutingProperties.Replica> specs = routingProperties.replicas();
+        for (int i = 0; i < specs.size(); i++) {
+            RoutingProperties.Replica spec = specs.get(i);
+            String name = spec.name() != null ? spec.name() : "replica-" + (i + 1);
+            replicas.put(name, buildReplica(name, spec, dataSourceProperties));
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWrites,
+                routingProperties.maxLag(), routingProperties.lagCheckInterval());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Runs cache-miss loaders in a read-only transaction so that they are routed to a replica.
+     * Loaders run only on a miss, so a hit still takes no connection. Keys that changed within
+     * the replica lag are loaded from the primary instead, see {@link ReadYourWrites}.
+     */
+    @Bean
+    public TransactionTemplate readOnlyTransaction(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static HikariDataSource buildReplica(
+            String name, RoutingProperties.Replica spec, DataSourceProperties primary
+    ) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(primary.determineDriverClassName())
+                .url(spec.url())
+                .username(spec.username() != null ? spec.username() : primary.determineUsername())
+                .password(spec.password() != null ? spec.password() : primary.determinePassword())
+                .build();
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(spec.maximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
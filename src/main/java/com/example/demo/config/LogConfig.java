@@ -0,0 +1,26 @@
+package com.example.demo.config;
+
+import com.example.demo.util.LogArchive;
+import com.example.demo.util.LogIndex;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LogConfig {
+    private static final long INDEX_STRIDE = 64 * 1024;
+
+    @Bean
+    public LogIndex logIndex(@Value("${logging.file.name:logs/app.log}") Path logFile) {
+        return new LogIndex(logFile, INDEX_STRIDE);
+    }
+
+    @Bean(destroyMethod = "close")
+    public LogArchive logArchive(LogIndex logIndex,
+                                 @Value("${logs.archive.parallelism:0}") int parallelism) {
+        return new LogArchive(logIndex, parallelism > 0
+                ? parallelism
+                : Runtime.getRuntime().availableProcessors());
+    }
+}
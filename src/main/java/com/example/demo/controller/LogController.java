@@ -2,21 +2,30 @@ package com.example.demo.controller;
 
 import com.example.demo.exception.InvalidArgumentsException;
 import com.example.demo.service.LogService;
+import com.example.demo.service.LogStreamService;
 import com.example.demo.util.DateValidator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.io.IOException;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
@@ -24,17 +33,15 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Logs", description = "Interaction with logs")
 public class LogController {
     private final LogService logService;
+    private final LogStreamService logStreamService;
 
     @GetMapping("/{date}")
     @Operation(summary = "Getting a new log ID")
     public String getNewLogId(
             @PathVariable @Parameter(description = "Log date", example = "2025-04-07")
             String date
-    ) throws IOException, InterruptedException {
-        if (!DateValidator.isValidDate(date)) {
-            throw new InvalidArgumentsException("Invalid date format. "
-                    + "Required in the form of 'yyyy-MM-dd'");
-        }
+    ) throws IOException {
+        checkDate(date);
 
         Long logId = logService.getNewLogId(date);
 
@@ -47,13 +54,110 @@ public class LogController {
         return logService.getLogStatus(logId);
     }
 
+    @DeleteMapping("/{logId}")
+    @Operation(summary = "Cancel log file generation")
+    public String cancelLog(@PathVariable Long logId) {
+        return logService.cancelLog(logId);
+    }
+
     @GetMapping("/download/{logId}")
     @Operation(summary = "Download log file")
     public ResponseEntity<Resource> getLog(@PathVariable Long logId) {
         String logFilePath = logService.getLog(logId);
         Resource resource = new FileSystemResource(logFilePath);
         return ResponseEntity.ok().contentType(MediaType.valueOf("text/plain; charset=UTF-8"))
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + logFilePath.substring(5) + "\"").body(resource);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                        + resource.getFilename() + "\"").body(resource);
+    }
+
+    @GetMapping("/{date}/stream")
+    @Operation(summary = "Stream log lines of a date straight from the log files")
+    public ResponseEntity<StreamingResponseBody> streamLog(
+            @PathVariable @Parameter(description = "Log date", example = "2025-04-07")
+            String date,
+            @RequestParam(defaultValue = "false")
+            @Parameter(description = "Compress the response, ignored for range requests")
+            boolean gzip,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range
+    ) throws IOException {
+        checkDate(date);
+
+        // The body opens the file itself, so nothing stays open when it fails or never runs.
+        LogStreamService.LogSlice located = logStreamService.locate(date);
+        if (located.rotated()) {
+            return streamRotatedLog(date, gzip);
+        }
+
+        long length = located.length();
+        try {
+            long offset = 0;
+            long count = length;
+            HttpStatus status = HttpStatus.OK;
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentDisposition(ContentDisposition.attachment()
+                    .filename(date + ".log").build());
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            if (range != null) {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    offset = ranges.getFirst().getRangeStart(length);
+                    count = ranges.getFirst().getRangeEnd(length) - offset + 1;
+                    status = HttpStatus.PARTIAL_CONTENT;
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-"
+                            + (offset + count - 1) + "/" + length);
+                }
+            }
+
+            boolean compress = gzip && status == HttpStatus.OK;
+            if (compress) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            } else {
+                headers.setContentLength(count);
+            }
+
+            long from = offset;
+            long bytes = count;
+            StreamingResponseBody body = out -> {
+                try (LogStreamService.LogSlice slice = logStreamService.reopen(date, located)) {
+                    slice.transferTo(from, bytes, out, compress);
+                }
+            };
+            return ResponseEntity.status(status)
+                    .contentType(MediaType.valueOf("text/plain; charset=UTF-8"))
+                    .headers(headers)
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .build();
+        }
+    }
+
+    /**
+     * Part of the date lives in rotated, possibly compressed segments whose filtered length is
+     * unknown until they are scanned, so the lines are streamed in full and ranges are refused.
+     */
+    private ResponseEntity<StreamingResponseBody> streamRotatedLog(String date, boolean gzip) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(date + ".log").build());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "none");
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody body = out -> logStreamService.transferRotated(date, out, gzip);
+        return ResponseEntity.ok()
+                .contentType(MediaType.valueOf("text/plain; charset=UTF-8"))
+                .headers(headers)
+                .body(body);
+    }
+
+    private static void checkDate(String date) {
+        if (!DateValidator.isValidDate(date)) {
+            throw new InvalidArgumentsException("Invalid date format. "
+                    + "Required in the form of 'yyyy-MM-dd'");
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.OrderRequestDto;
 import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.OrderSliceDto;
 import com.example.demo.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,6 +10,7 @@ import jakarta.validation.Valid;
 import java.net.URI;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -38,6 +40,16 @@ public class OrderController {
                 .body(createdOrder);
     }
 
+    @PostMapping("/users/{userId}/orders/bulk")
+    @Operation(summary = "Creating new orders for a user")
+    public ResponseEntity<List<OrderResponseDto>> createOrders(
+            @PathVariable long userId,
+            @Valid @RequestBody List<OrderRequestDto> orders
+    ) {
+        List<OrderResponseDto> createdOrders = orderService.createOrders(userId, orders);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdOrders);
+    }
+
     @PatchMapping("/orders/{id}")
     @Operation(summary = "Changing an existing order partially")
     public ResponseEntity<OrderResponseDto> patchOrder(
@@ -63,6 +75,15 @@ public class OrderController {
         return orderService.getOrdersPageable(page, size).getContent();
     }
 
+    @GetMapping("/orders/scroll")
+    @Operation(summary = "Getting orders after a cursor")
+    public OrderSliceDto scrollOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return orderService.getOrdersAfter(cursor, size);
+    }
+
     @GetMapping("/orders/{id}")
     @Operation(summary = "Getting a specific order")
     public OrderResponseDto getOrder(@PathVariable long id) {
@@ -78,4 +99,14 @@ public class OrderController {
     ) {
         return orderService.getOrdersByUserId(userId, page, size).getContent();
     }
+
+    @GetMapping("/users/{userId}/orders/scroll")
+    @Operation(summary = "Getting orders of a specific user after a cursor")
+    public OrderSliceDto scrollOrdersByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return orderService.getOrdersByUserIdAfter(userId, cursor, size);
+    }
 }
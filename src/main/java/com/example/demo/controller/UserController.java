@@ -3,6 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.dto.UserRequestDto;
 import com.example.demo.dto.UserResponseDto;
 import com.example.demo.model.User;
+import com.example.demo.service.UserExportService;
 import com.example.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,6 +12,7 @@ import java.net.URI;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,7 +21,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/users")
@@ -27,6 +31,7 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Users", description = "Interaction with users")
 public class UserController {
     private final UserService userService;
+    private final UserExportService userExportService;
 
     @PostMapping
     @Operation(summary = "Creating a new user")
@@ -67,6 +72,23 @@ public class UserController {
         return userService.getUsers();
     }
 
+    @GetMapping(params = "page")
+    @Operation(summary = "Getting a list of paginated users")
+    public List<UserResponseDto> getUsersPageable(
+            @RequestParam int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return userService.getUsersPageable(page, size);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @Operation(summary = "Exporting all users with their orders as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(userExportService::exportUsers);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Getting a specific user by id")
     public UserResponseDto getUserById(@PathVariable long id) {
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+public record LogJob(
+        long id,
+        String date,
+        String key,
+        LogJobStatus status,
+        int progress,
+        String path
+) {
+    public LogJob withStatus(LogJobStatus newStatus) {
+        return new LogJob(id, date, key, newStatus, progress, path);
+    }
+
+    public LogJob withProgress(int newProgress) {
+        return new LogJob(id, date, key, status, newProgress, path);
+    }
+}
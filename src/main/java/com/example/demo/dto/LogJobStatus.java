@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+public enum LogJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED,
+    REJECTED;
+
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.demo.dto;
 
 import com.example.demo.model.Order;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.util.List;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
+@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
@@ -20,12 +23,15 @@ public class OrderResponseDto {
     private String description;
     @Schema(description = "Order price", example = "199.99")
     private Double price;
+    @JsonIgnore
+    private Long version;
 
     public static OrderResponseDto toDto(Order entity) {
         OrderResponseDto dto = new OrderResponseDto();
         dto.setId(entity.getId());
         dto.setDescription(entity.getDescription());
         dto.setPrice(entity.getPrice());
+        dto.setVersion(entity.getVersion());
         return dto;
     }
 
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderSliceDto {
+    @Schema(description = "Orders of this slice ordered by id")
+    private List<OrderResponseDto> orders;
+    @Schema(description = "Cursor of the next slice, absent on the last one", example = "MTA")
+    private String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+
+public record UserOrderRow(
+        Long userId,
+        String name,
+        String email,
+        Long userVersion,
+        Long orderId,
+        String description,
+        Double price,
+        Long orderVersion
+) {
+    public UserResponseDto toUserDto() {
+        UserResponseDto user = new UserResponseDto();
+        user.setId(userId);
+        user.setName(name);
+        user.setEmail(email);
+        user.setOrders(new ArrayList<>());
+        user.setVersion(userVersion);
+        return user;
+    }
+
+    public OrderResponseDto toOrderDto() {
+        return orderId == null ? null : new OrderResponseDto(orderId, description, price,
+                orderVersion);
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.demo.dto;
 
 import com.example.demo.model.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,12 +26,15 @@ public class UserResponseDto {
     private String email;
     @Schema(description = "List of user's orders")
     private List<OrderResponseDto> orders;
+    @JsonIgnore
+    private Long version;
 
     public static UserResponseDto toDto(User entity) {
         UserResponseDto dto = new UserResponseDto();
         dto.setId(entity.getId());
         dto.setName(entity.getName());
         dto.setEmail(entity.getEmail());
+        dto.setVersion(entity.getVersion());
 
         if (entity.getOrders() != null) {
             dto.setOrders(OrderResponseDto.toDtoList(entity.getOrders()));
@@ -43,4 +48,20 @@ public class UserResponseDto {
     public static List<UserResponseDto> toDtoList(List<User> entityList) {
         return entityList.stream().map(UserResponseDto::toDto).toList();
     }
+
+    public static List<UserResponseDto> fromRows(List<UserOrderRow> rows) {
+        List<UserResponseDto> users = new ArrayList<>();
+        UserResponseDto current = null;
+        for (UserOrderRow row : rows) {
+            if (current == null || !current.getId().equals(row.userId())) {
+                current = row.toUserDto();
+                users.add(current);
+            }
+            OrderResponseDto order = row.toOrderDto();
+            if (order != null) {
+                current.getOrders().add(order);
+            }
+        }
+        return users;
+    }
 }
@@ -1,16 +1,43 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.OrderResponseDto;
 import com.example.demo.model.Order;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    @Query("SELECT o FROM Order o")
-    Page<Order> findOrdersPageable(Pageable pageable);
+    String ORDER_DTOS = "SELECT new com.example.demo.dto.OrderResponseDto("
+            + "o.id, o.description, o.price, o.version) FROM Order o ";
 
-    Page<Order> findByUserId(Long userId, Pageable pageable);
-}
\ No newline at end of file
+    @Query(ORDER_DTOS + "WHERE o.id = :id")
+    Optional<OrderResponseDto> findDtoById(@Param("id") Long id);
+
+    @Query("SELECT o.user.id FROM Order o WHERE o.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    @Query(ORDER_DTOS + "WHERE o.id IN :ids")
+    List<OrderResponseDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = ORDER_DTOS, countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderResponseDto> findOrderDtos(Pageable pageable);
+
+    @Query(value = ORDER_DTOS + "WHERE o.user.id = :userId",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderResponseDto> findOrderDtosByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(ORDER_DTOS + "WHERE o.id > :afterId ORDER BY o.id ASC")
+    List<OrderResponseDto> findOrderDtosAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(ORDER_DTOS + "WHERE o.user.id = :userId AND o.id > :afterId ORDER BY o.id ASC")
+    List<OrderResponseDto> findOrderDtosByUserIdAfter(
+            @Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+}
@@ -1,26 +1,73 @@
 package com.example.demo.repository;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+import com.example.demo.dto.UserOrderRow;
 import com.example.demo.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import lombok.NonNull;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-    @EntityGraph(attributePaths = "orders")
-    @NonNull
-    @Query("SELECT u FROM User u ORDER BY u.id ASC")
-    List<User> findAll();
+    String USER_ROWS = "SELECT new com.example.demo.dto.UserOrderRow("
+            + "u.id, u.name, u.email, u.version, o.id, o.description, o.price, o.version) "
+            + "FROM User u LEFT JOIN u.orders o ";
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByEmail(String email);
 
     @EntityGraph(attributePaths = "orders")
     @NonNull
     Optional<User> findById(@NonNull Long id);
 
-    List<User> findAllByEmailIn(List<String> emails);
+    /**
+     * Locks the user row until the end of the transaction and increments its version, so that
+     * writes to the user's orders are serialized and versioned in commit order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> lockById(@Param("id") Long id);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findEmailsByEmailIn(@Param("emails") Collection<String> emails);
+
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "10000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamEmails();
+
+    @Query("SELECT u.id FROM User u")
+    List<Long> findUserIds(Pageable pageable);
+
+    @Query(USER_ROWS + "ORDER BY u.id ASC, o.id ASC")
+    List<UserOrderRow> findUserRows();
+
+    @Query(USER_ROWS + "WHERE u.id = :id ORDER BY o.id ASC")
+    List<UserOrderRow> findUserRowsById(@Param("id") Long id);
+
+    @Query(USER_ROWS + "WHERE u.id IN :ids ORDER BY u.id ASC, o.id ASC")
+    List<UserOrderRow> findUserRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(USER_ROWS + "ORDER BY u.id ASC, o.id ASC")
+    Stream<UserOrderRow> streamUsersWithOrders();
 }
@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import com.example.demo.component.CustomCache;
+import com.example.demo.config.CacheProperties;
+import com.example.demo.dto.UserResponseDto;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.UserRepository;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class CacheSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotService.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final CacheProperties properties;
+    private final CustomCache cache;
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+
+    @EventListener(ContextClosedEvent.class)
+    public void save() {
+        CacheProperties.SnapshotSpec spec = properties.snapshot();
+        if (spec == null || !spec.enabled()) {
+            return;
+        }
+
+        List<Long> userIds = cache.getHottestUserIds(spec.maximumKeys());
+        List<Long> orderIds = cache.getHottestOrderIds(spec.maximumKeys());
+        try {
+            Path path = spec.path().toAbsolutePath();
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), "snapshot", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                writeIds(out, userIds);
+                writeIds(out, orderIds);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("[CACHE] Saved snapshot of {} users and {} orders",
+                    userIds.size(), orderIds.size());
+        } catch (IOException e) {
+            logger.warn("[CACHE] Could not save snapshot: {}", e.getMessage());
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        CacheProperties.SnapshotSpec spec = properties.snapshot();
+        if (spec == null || !spec.enabled() || !Files.exists(spec.path())) {
+            return;
+        }
+
+        List<Long> userIds;
+        List<Long> orderIds;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(spec.path())))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                logger.warn("[CACHE] Ignoring snapshot with unknown format");
+                return;
+            }
+            userIds = readIds(in, spec.maximumKeys());
+            orderIds = readIds(in, spec.maximumKeys());
+        } catch (IOException e) {
+            logger.warn("[CACHE] Could not read snapshot: {}", e.getMessage());
+            return;
+        }
+
+        int users = warm(userIds, spec.batchSize(), batch -> cache.warmUsers(batch,
+                ids -> UserResponseDto.fromRows(userRepository.findUserRowsByIdIn(ids))));
+        int orders = warm(orderIds, spec.batchSize(), batch -> cache.warmOrders(batch,
+                orderRepository::findDtosByIdIn));
+        logger.info("[CACHE] Restored {} users and {} orders from snapshot", users, orders);
+    }
+
+    private static int warm(List<Long> ids, int batchSize, Function<List<Long>, Integer> loader) {
+        int warmed = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            warmed += loader.apply(ids.subList(from, Math.min(from + batchSize, ids.size())));
+        }
+        return warmed;
+    }
+
+    private static void writeIds(DataOutputStream out, List<Long> ids) throws IOException {
+        out.writeInt(ids.size());
+        for (Long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static List<Long> readIds(DataInputStream in, int limit) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Corrupt snapshot: negative key count " + size);
+        }
+        List<Long> ids = new ArrayList<>(Math.min(size, limit));
+        for (int i = 0; i < size; i++) {
+            long id = in.readLong();
+            if (i < limit) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -1,49 +1,359 @@
 package com.example.demo.service;
 
+import com.example.demo.component.LogExtractCache;
+import com.example.demo.dto.LogJob;
+import com.example.demo.dto.LogJobStatus;
 import com.example.demo.exception.InvalidArgumentsException;
 import com.example.demo.exception.NotFoundException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.util.LogArchive;
+import com.example.demo.util.LogIndex;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Runs log extraction jobs on a bounded pool and publishes their output to the
+ * {@link LogExtractCache}. Job metadata is kept in {@code jobs.json} and rewritten on every
+ * status change, so ids and statuses survive a restart; jobs that were still queued or running
+ * at shutdown come back as failed. Finished jobs are pruned on startup and whenever a job is
+ * submitted, so neither the map nor the file grows without bound.
+ */
 @Service
-@RequiredArgsConstructor
 public class LogService {
-    private final ConcurrentHashMap<Long, String> logs = new ConcurrentHashMap<>();
-    private final LogAsyncService logAsyncService;
-    private Long logId = 0L;
+    private static final Logger logger = LoggerFactory.getLogger(LogService.class);
+    private static final String JOB_STORE = "jobs.json";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    private static final TypeReference<List<LogJob>> JOB_LIST = new TypeReference<>() {};
 
-    public Long getNewLogId(String date) throws IOException, InterruptedException {
-        logAsyncService.createLogFile(++logId, date, logs);
-        return logId;
+    private final LogIndex logIndex;
+    private final LogArchive logArchive;
+    private final LogExtractCache extractCache;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+    private final int historySize;
+    private final ConcurrentHashMap<Long, LogJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Future<?>> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> jobsByKey = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+
+    public LogService(
+            LogIndex logIndex,
+            LogArchive logArchive,
+            LogExtractCache extractCache,
+            ObjectMapper objectMapper,
+            @Value("${logs.jobs.directory:logs}") Path directory,
+            @Value("${logs.jobs.workers:2}") int workers,
+            @Value("${logs.jobs.queue-capacity:16}") int queueCapacity,
+            @Value("${logs.jobs.history-size:1000}") int historySize
+    ) {
+        this.logIndex = logIndex;
+        this.logArchive = logArchive;
+        this.extractCache = extractCache;
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.historySize = historySize;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "log-job-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
-    public String getLogStatus(Long logId) {
-        if (logId <= 0) {
-            throw new InvalidArgumentsException("Invalid log id");
+    @PostConstruct
+    public void load() throws IOException {
+        Path store = directory.resolve(JOB_STORE);
+        if (!Files.exists(store)) {
+            return;
         }
 
-        if (!logs.containsKey(logId)) {
-            if (logId > this.logId) {
-                throw new NotFoundException("Log file with id " + logId + " not found");
-            } else {
-                return "Log file with id " + logId + " is not ready";
+        for (LogJob job : objectMapper.readValue(store.toFile(), JOB_LIST)) {
+            jobs.put(job.id(), job.status().isFinished()
+                    ? job
+                    : job.withStatus(LogJobStatus.FAILED));
+            lastId.accumulateAndGet(job.id(), Math::max);
+            if (job.key() != null && job.status() == LogJobStatus.DONE) {
+                jobsByKey.put(job.key(), job.id());
             }
-        } else {
-            return "Log file with id " + logId + " is ready to download";
         }
+        prune();
+        persist();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the job that produces the extract of {@code date}. Requests for the same content
+     * share one job and artifact: past dates can no longer change, so they are keyed by date
+     * alone, while the current date is also keyed by the log file and how far it has grown.
+     * The key is computed before taking the lock, since for the current date it means locating
+     * the date in the log file.
+     */
+    public Long getNewLogId(String date) throws IOException {
+        return submit(date, extractKey(date));
+    }
+
+    public String getLogStatus(Long logId) {
+        LogJob job = getJob(logId);
+        return switch (job.status()) {
+            case QUEUED -> "Log file with id " + logId + " is queued";
+            case RUNNING -> "Log file with id " + logId + " is not ready ("
+                    + job.progress() + "%)";
+            case DONE -> Files.exists(Path.of(job.path()))
+                    ? "Log file with id " + logId + " is ready to download"
+                    : "Log file with id " + logId + " expired";
+            case FAILED -> "Log file with id " + logId + " failed";
+            case CANCELLED -> "Log file with id " + logId + " was cancelled";
+            case REJECTED -> "Log file with id " + logId + " was rejected";
+        };
     }
 
     public String getLog(Long logId) {
+        LogJob job = getJob(logId);
+        if (job.status() != LogJobStatus.DONE || !Files.exists(Path.of(job.path()))) {
+            throw new NotFoundException("Log file with id " + logId + " not found");
+        }
+        if (job.key() != null) {
+            extractCache.touch(job.key());
+        }
+        return job.path();
+    }
+
+    public String cancelLog(Long logId) {
+        LogJob job = getJob(logId);
+        if (job.status().isFinished()) {
+            throw new InvalidArgumentsException("Log file with id " + logId + " is already "
+                    + job.status().name().toLowerCase());
+        }
+
+        AtomicReference<LogJobStatus> previous = new AtomicReference<>();
+        update(logId, current -> {
+            previous.set(current.status());
+            return current.status().isFinished()
+                    ? current
+                    : current.withStatus(LogJobStatus.CANCELLED);
+        });
+        // A queued task returns right away even if it still starts, while a running one keeps
+        // its entry until it has stopped and cleaned up, which keeps the job from being pruned.
+        Future<?> task = previous.get() == LogJobStatus.QUEUED
+                ? tasks.remove(logId)
+                : tasks.get(logId);
+        if (task != null) {
+            task.cancel(true);
+            executor.purge();
+        }
+        return "Log file with id " + logId + " was cancelled";
+    }
+
+    private synchronized Long submit(String date, String key) {
+        Long existingId = jobsByKey.get(key);
+        if (existingId != null && isReusable(jobs.get(existingId))) {
+            return existingId;
+        }
+
+        prune();
+        long id = lastId.incrementAndGet();
+        String path = extractCache.path(key).toString();
+        jobs.put(id, new LogJob(id, date, key, LogJobStatus.QUEUED, 0, path));
+        jobsByKey.put(key, id);
+        persist();
+
+        try {
+            Future<?> task = executor.submit(() -> run(id));
+            tasks.put(id, task);
+            if (jobs.get(id).status().isFinished()) {
+                tasks.remove(id);
+            }
+        } catch (RejectedExecutionException e) {
+            update(id, job -> job.withStatus(LogJobStatus.REJECTED));
+            throw new ServiceUnavailableException("Too many log files are being generated, "
+                    + "log file with id " + id + " was rejected");
+        }
+        return id;
+    }
+
+    private LogJob getJob(Long logId) {
         if (logId <= 0) {
-            throw new InvalidArgumentsException("Invalid logId");
+            throw new InvalidArgumentsException("Invalid log id");
         }
 
-        if (!logs.containsKey(logId)) {
+        LogJob job = jobs.get(logId);
+        if (job == null) {
             throw new NotFoundException("Log file with id " + logId + " not found");
-        } else {
-            return logs.get(logId);
+        }
+        return job;
+    }
+
+    private void run(long id) {
+        try {
+            LogJob job = update(id, current -> current.status() == LogJobStatus.QUEUED
+                    ? current.withStatus(LogJobStatus.RUNNING)
+                    : current);
+            if (job != null && job.status() == LogJobStatus.RUNNING) {
+                extract(job);
+            }
+        } finally {
+            tasks.remove(id);
+        }
+    }
+
+    private void extract(LogJob job) {
+        long id = job.id();
+        Path temp = null;
+        try {
+            temp = extractCache.newTempFile(job.key());
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                String nextDate = LocalDate.parse(job.date()).plusDays(1).toString();
+                logArchive.extract(job.date(), nextDate, out, (copied, total) -> {
+                    int progress = total == 0 ? 100 : (int) (copied * 100 / total);
+                    jobs.computeIfPresent(id, (key, current) -> current.withProgress(progress));
+                });
+            }
+            extractCache.publish(job.key(), temp);
+        } catch (IOException | RuntimeException e) {
+            LogJob failed = update(id, current -> current.status() == LogJobStatus.RUNNING
+                    ? current.withStatus(LogJobStatus.FAILED)
+                    : current);
+            if (failed != null && failed.status() == LogJobStatus.FAILED) {
+                logger.warn("[LOGS] Log file with id {} failed: {}", id, e.getMessage());
+            }
+            return;
+        } finally {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+
+        update(id, current -> current.status() == LogJobStatus.RUNNING
+                ? current.withStatus(LogJobStatus.DONE).withProgress(100)
+                : current);
+    }
+
+    private boolean isReusable(LogJob job) {
+        if (job == null) {
+            return false;
+        }
+        return switch (job.status()) {
+            case QUEUED, RUNNING -> true;
+            case DONE -> extractCache.touch(job.key());
+            default -> false;
+        };
+    }
+
+    /**
+     * Forgets the finished jobs that can no longer be downloaded: rejected and cancelled ones and
+     * done ones whose extract was evicted. Of the others, only the latest {@code historySize}
+     * finished jobs are kept. A cancelled job stays until its task has stopped and cleaned up.
+     */
+    private void prune() {
+        List<LogJob> finished = jobs.values().stream()
+                .filter(job -> job.status().isFinished())
+                .sorted(Comparator.comparingLong(LogJob::id).reversed())
+                .toList();
+
+        int kept = 0;
+        for (LogJob job : finished) {
+            if (tasks.containsKey(job.id())) {
+                continue;
+            }
+
+            boolean useful = switch (job.status()) {
+                case DONE -> Files.exists(Path.of(job.path()));
+                case FAILED -> true;
+                default -> false;
+            };
+            if (useful && kept < historySize) {
+                kept++;
+                continue;
+            }
+
+            jobs.remove(job.id());
+            if (job.key() != null) {
+                jobsByKey.remove(job.key(), job.id());
+            }
+        }
+    }
+
+    @SuppressWarnings("checkstyle:CatchParameterName")
+    private String extractKey(String date) throws IOException {
+        LocalDate day = LocalDate.parse(date);
+        if (day.isBefore(LocalDate.now())) {
+            return date;
+        }
+
+        try (FileChannel channel = logIndex.open()) {
+            LogIndex.Range range = logIndex.locate(channel, date, day.plusDays(1).toString());
+            return date + "-" + Integer.toHexString(Objects.hashCode(logIndex.fileKey()))
+                    + "-" + range.end();
+        } catch (NoSuchFileException _) {
+            return date + "-empty";
+        }
+    }
+
+    private LogJob update(long id, UnaryOperator<LogJob> change) {
+        LogJob before = jobs.get(id);
+        LogJob after = jobs.computeIfPresent(id, (key, current) -> change.apply(current));
+        if (after != null && (before == null || after.status() != before.status())) {
+            persist();
+        }
+        return after;
+    }
+
+    private synchronized void persist() {
+        List<LogJob> snapshot = new ArrayList<>(jobs.values());
+        snapshot.sort(Comparator.comparingLong(LogJob::id));
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "jobs", ".tmp");
+            objectMapper.writeValue(temp.toFile(), snapshot);
+            Files.move(temp, directory.resolve(JOB_STORE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("[LOGS] Could not delete {}: {}", path, e.getMessage());
         }
     }
 }
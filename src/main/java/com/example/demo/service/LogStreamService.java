@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.util.LogArchive;
+import com.example.demo.util.LogIndex;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class LogStreamService {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final LogIndex logIndex;
+    private final LogArchive logArchive;
+
+    /**
+     * Pins the lines of {@code date} in the current log file. The returned slice keeps the file
+     * open, so it stays readable even if the log is rotated before the transfer finishes.
+     * When part of the date was already rotated out, the slice is marked as rotated and the
+     * date has to be sent with {@link #transferRotated} instead. Segments are looked up after
+     * the file was opened, so a rotation in between is never missed.
+     */
+    @SuppressWarnings("checkstyle:CatchParameterName")
+    public LogSlice open(String date) throws IOException {
+        String nextDate = nextDate(date);
+        FileChannel channel;
+        try {
+            channel = logIndex.open();
+        } catch (NoSuchFileException _) {
+            channel = null;
+        }
+
+        try {
+            if (!logArchive.segments(date, nextDate).isEmpty()) {
+                if (channel != null) {
+                    channel.close();
+                }
+                return new LogSlice(null, 0, 0, true);
+            }
+            if (channel == null) {
+                return new LogSlice(null, 0, 0, false);
+            }
+
+            LogIndex.Range range = logIndex.locate(channel, date, nextDate);
+            return new LogSlice(channel, range.start(), range.length(), false);
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Locates {@code date} like {@link #open} without keeping the file open, for callers that
+     * only need the bounds up front and transfer later through {@link #reopen}.
+     */
+    public LogSlice locate(String date) throws IOException {
+        try (LogSlice slice = open(date)) {
+            return new LogSlice(null, slice.start(), slice.length(), slice.rotated());
+        }
+    }
+
+    /**
+     * Opens {@code date} again for a transfer within the bounds of {@code located}. Fails when
+     * the log was rotated or truncated in between, since the located offsets no longer apply.
+     */
+    public LogSlice reopen(String date, LogSlice located) throws IOException {
+        LogSlice slice = open(date);
+        if (slice.rotated() || slice.start() != located.start()
+                || slice.length() < located.length()) {
+            slice.close();
+            throw new IOException("Log file was rotated before the transfer started");
+        }
+        return slice;
+    }
+
+    /**
+     * Sends the lines of a rotated {@code date}: its segments in order, decompressed and
+     * filtered one after another, then the current log file. The length is not known up front,
+     * so ranges are not supported on this path.
+     */
+    public void transferRotated(String date, OutputStream out, boolean gzip) throws IOException {
+        if (!gzip) {
+            logArchive.stream(date, nextDate(date), out);
+            return;
+        }
+
+        GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        logArchive.stream(date, nextDate(date), compressed);
+        compressed.finish();
+    }
+
+    private static String nextDate(String date) {
+        return LocalDate.parse(date).plusDays(1).toString();
+    }
+
+    public record LogSlice(FileChannel channel, long start, long length, boolean rotated)
+            implements AutoCloseable {
+        /**
+         * Sends {@code count} bytes starting at {@code offset} within the slice using
+         * {@link FileChannel#transferTo}, optionally gzip-compressing them on the way.
+         */
+        public void transferTo(long offset, long count, OutputStream out, boolean gzip)
+                throws IOException {
+            if (!gzip) {
+                transfer(offset, count, Channels.newChannel(out));
+                return;
+            }
+
+            GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            transfer(offset, count, Channels.newChannel(compressed));
+            compressed.finish();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
+        private void transfer(long offset, long count, WritableByteChannel target)
+                throws IOException {
+            long position = start + offset;
+            long end = position + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred == 0 && position >= channel.size()) {
+                    throw new EOFException("Log file was truncated during transfer");
+                }
+                position += transferred;
+            }
+        }
+    }
+}
@@ -3,22 +3,24 @@ package com.example.demo.service;
 import com.example.demo.component.CustomCache;
 import com.example.demo.dto.OrderRequestDto;
 import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.OrderSliceDto;
 import com.example.demo.exception.InvalidArgumentsException;
 import com.example.demo.exception.NotFoundException;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
 import com.example.demo.repository.OrderRepository;
 import com.example.demo.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
-import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -26,8 +28,11 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final CustomCache cache;
+    private final TransactionTemplate readOnlyTransaction;
 
     private static final String INVALID_ID_MESSAGE = "Invalid order id";
+    private static final String INVALID_CURSOR_MESSAGE = "Invalid cursor";
+    private static final int MAX_PAGE_SIZE = 100;
     private static final String ORDER_NOT_FOUND_MESSAGE = "Order with id %d not found";
 
     @Transactional
@@ -36,19 +41,38 @@ public class OrderService {
             throw new InvalidArgumentsException("Invalid user id");
         }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User with id " + userId + " not found"));
+        User user = lockUser(userId);
 
         Order newOrder = OrderRequestDto.toEntity(order, user);
 
         orderRepository.save(newOrder);
-        cache.removeUser(userId);
+        OrderResponseDto orderDto = OrderResponseDto.toDto(newOrder);
+        cache.writeOrder(userId, user.getVersion(), orderDto);
 
-        return OrderResponseDto.toDto(newOrder);
+        return orderDto;
+    }
+
+    @Transactional
+    public List<OrderResponseDto> createOrders(Long userId, List<OrderRequestDto> orders) {
+        if (userId <= 0) {
+            throw new InvalidArgumentsException("Invalid user id");
+        } else if (orders.isEmpty()) {
+            throw new InvalidArgumentsException("Orders list cannot be empty");
+        }
+
+        User user = lockUser(userId);
+        List<Order> newOrders = OrderRequestDto.toEntityList(orders, user);
+
+        orderRepository.saveAll(newOrders);
+        List<OrderResponseDto> ordersDto = OrderResponseDto.toDtoList(newOrders);
+        cache.writeOrders(userId, user.getVersion(), ordersDto);
+
+        return ordersDto;
     }
 
     @Transactional
     public OrderResponseDto updatePartiallyOrder(Long id, OrderRequestDto newOrder) {
+        User user = lockOwner(id);
         Order existingOrder = checkOrder(id);
 
         if ((newOrder.getDescription() == null || newOrder.getDescription().isBlank())
@@ -71,12 +95,12 @@ public class OrderService {
             existingOrder.setPrice(newOrder.getPrice());
         }
 
-        orderRepository.save(existingOrder);
+        orderRepository.saveAndFlush(existingOrder);
 
-        cache.removeOrder(id);
-        cache.removeUser(existingOrder.getUser().getId());
+        OrderResponseDto orderDto = OrderResponseDto.toDto(existingOrder);
+        cache.writeOrder(user.getId(), user.getVersion(), orderDto);
 
-        return OrderResponseDto.toDto(existingOrder);
+        return orderDto;
     }
 
     @Transactional
@@ -85,24 +109,45 @@ public class OrderService {
             throw new InvalidArgumentsException(INVALID_ID_MESSAGE);
         }
 
-        if (orderRepository.existsById(id)) {
-            Optional<Order> order = orderRepository.findById(id);
-            orderRepository.deleteById(id);
-            cache.removeOrder(id);
-            order.ifPresent(value -> cache.removeUser(value.getUser().getId()));
-        } else {
+        if (!orderRepository.existsById(id)) {
             throw new NotFoundException(String.format(ORDER_NOT_FOUND_MESSAGE, id));
         }
+
+        User user = lockOwner(id);
+        orderRepository.deleteById(id);
+        cache.deleteOrder(user.getId(), user.getVersion(), id);
     }
 
     public Page<OrderResponseDto> getOrdersPageable(int page, int size) {
         checkPageAndSize(page, size);
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
-        Page<Order> ordersPage = orderRepository.findOrdersPageable(pageable);
-        List<OrderResponseDto> ordersDto = OrderResponseDto.toDtoList(ordersPage.getContent());
+        return cache.getOrdersPage(null, page, size, () -> readOnlyTransaction.execute(status ->
+                orderRepository.findOrderDtos(
+                        PageRequest.of(page, size, Sort.by("id").ascending()))));
+    }
+
+    @Transactional(readOnly = true)
+    public OrderSliceDto getOrdersAfter(String cursor, int size) {
+        checkSize(size);
 
-        return new PageImpl<>(ordersDto, pageable, ordersPage.getTotalElements());
+        List<OrderResponseDto> orders = orderRepository.findOrderDtosAfter(
+                decodeCursor(cursor), Limit.of(size + 1));
+        return toSlice(orders, size);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderSliceDto getOrdersByUserIdAfter(Long userId, String cursor, int size) {
+        if (userId <= 0) {
+            throw new InvalidArgumentsException("Invalid user id");
+        }
+        checkSize(size);
+
+        List<OrderResponseDto> orders = orderRepository.findOrderDtosByUserIdAfter(
+                userId, decodeCursor(cursor), Limit.of(size + 1));
+        if (orders.isEmpty() && !userRepository.existsById(userId)) {
+            throw new NotFoundException("User with id " + userId + " not found");
+        }
+        return toSlice(orders, size);
     }
 
     public OrderResponseDto getOrderById(Long id) {
@@ -110,18 +155,14 @@ public class OrderService {
             throw new InvalidArgumentsException(INVALID_ID_MESSAGE);
         }
 
-        if (cache.containsOrder(id)) {
-            return cache.getOrder(id);
-        }
-
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException(String
-                        .format(ORDER_NOT_FOUND_MESSAGE, id)));
-        OrderResponseDto orderDto = OrderResponseDto.toDto(order);
+        OrderResponseDto order = cache.getOrder(id, key -> readOnlyTransaction.execute(status ->
+                orderRepository.findDtoById(key).orElse(null)));
 
-        cache.putOrder(id, orderDto);
+        if (order == null) {
+            throw new NotFoundException(String.format(ORDER_NOT_FOUND_MESSAGE, id));
+        }
 
-        return orderDto;
+        return order;
     }
 
     public Page<OrderResponseDto> getOrdersByUserId(Long userId, int page, int size) {
@@ -129,16 +170,39 @@ public class OrderService {
             throw new InvalidArgumentsException(INVALID_ID_MESSAGE);
         }
 
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User with id " + userId + " not found"));
-
         checkPageAndSize(page, size);
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
-        Page<Order> ordersPage = orderRepository.findByUserId(userId, pageable);
-        List<OrderResponseDto> ordersDto = OrderResponseDto.toDtoList(ordersPage.getContent());
+        return cache.getOrdersPage(userId, page, size, () -> readOnlyTransaction.execute(status -> {
+            if (!userRepository.existsById(userId)) {
+                throw new NotFoundException("User with id " + userId + " not found");
+            }
+
+            return orderRepository.findOrderDtosByUserId(userId,
+                    PageRequest.of(page, size, Sort.by("id").ascending()));
+        }));
+    }
+
+    /**
+     * Locks the owner of order {@code id} before the order is read, so concurrent writes to the
+     * same user's orders apply one after another and each sees the previous one's result.
+     */
+    private User lockOwner(Long id) {
+        if (id <= 0) {
+            throw new InvalidArgumentsException(INVALID_ID_MESSAGE);
+        }
+
+        Long userId = cache.getOrderOwner(id);
+        if (userId == null) {
+            userId = orderRepository.findUserIdById(id)
+                    .orElseThrow(() -> new NotFoundException(String
+                            .format(ORDER_NOT_FOUND_MESSAGE, id)));
+        }
+        return lockUser(userId);
+    }
 
-        return new PageImpl<>(ordersDto, pageable, ordersPage.getTotalElements());
+    private User lockUser(Long userId) {
+        return userRepository.lockById(userId)
+                .orElseThrow(() -> new NotFoundException("User with id " + userId + " not found"));
     }
 
     private Order checkOrder(Long id) {
@@ -154,8 +218,48 @@ public class OrderService {
     private void checkPageAndSize(int page, int size) {
         if (page < 0) {
             throw new InvalidArgumentsException("Page number cannot be negative");
-        } else if (size <= 0) {
+        }
+        checkSize(size);
+    }
+
+    private void checkSize(int size) {
+        if (size <= 0) {
             throw new InvalidArgumentsException("Page size cannot be negative or zero");
+        } else if (size > MAX_PAGE_SIZE) {
+            throw new InvalidArgumentsException("Page size cannot be greater than "
+                                                + MAX_PAGE_SIZE);
+        }
+    }
+
+    private static OrderSliceDto toSlice(List<OrderResponseDto> orders, int size) {
+        if (orders.size() <= size) {
+            return new OrderSliceDto(orders, null);
+        }
+
+        List<OrderResponseDto> slice = orders.subList(0, size);
+        return new OrderSliceDto(slice, encodeCursor(slice.getLast().getId()));
+    }
+
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor),
+                    StandardCharsets.US_ASCII);
+            long lastId = Long.parseLong(decoded);
+            if (lastId < 0) {
+                throw new InvalidArgumentsException(INVALID_CURSOR_MESSAGE);
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidArgumentsException(INVALID_CURSOR_MESSAGE);
         }
     }
 }
@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.UserOrderRow;
+import com.example.demo.dto.UserResponseDto;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes every user with their orders as one JSON object per line. Rows come from a
+     * server-side cursor as flat projections ordered by user, so only the user being
+     * assembled is held in memory and nothing enters the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(OutputStream out) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        try (Stream<UserOrderRow> rows = userRepository.streamUsersWithOrders();
+             SequenceWriter writer = objectMapper.writerFor(UserResponseDto.class)
+                     .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(buffered)) {
+            UserResponseDto current = null;
+            Iterator<UserOrderRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                UserOrderRow row = iterator.next();
+                if (current == null || !current.getId().equals(row.userId())) {
+                    if (current != null) {
+                        writer.write(current);
+                    }
+                    current = row.toUserDto();
+                }
+                OrderResponseDto order = row.toOrderDto();
+                if (order != null) {
+                    current.getOrders().add(order);
+                }
+            }
+            if (current == null) {
+                return;
+            }
+            writer.write(current);
+        }
+        buffered.write('\n');
+        buffered.flush();
+    }
+}
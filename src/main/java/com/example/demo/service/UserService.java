@@ -1,7 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.component.CustomCache;
-import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.component.EmailFilter;
 import com.example.demo.dto.UserRequestDto;
 import com.example.demo.dto.UserResponseDto;
 import com.example.demo.exception.ConflictException;
@@ -9,33 +9,51 @@ import com.example.demo.exception.InvalidArgumentsException;
 import com.example.demo.exception.NotFoundException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
-import jakarta.transaction.Transactional;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
     private final CustomCache cache;
+    private final EmailFilter emailFilter;
+    private final TransactionTemplate readOnlyTransaction;
 
     private static final String INVALID_ID_MESSAGE = "Invalid user id";
     private static final String USER_NOT_FOUND_MESSAGE = "User with id %d not found";
     private static final String EMAIL_ALREADY_EXISTS_MESSAGE = "User with email %s already exists";
+    private static final String EMAILS_ALREADY_EXIST_MESSAGE = "Next emails already exist: ";
+    private static final String EMAIL_CONSTRAINT = "users_email_key";
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Transactional
     public UserResponseDto createUser(UserRequestDto user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new ConflictException(String
-                    .format(EMAIL_ALREADY_EXISTS_MESSAGE, user.getEmail()));
-        }
+        checkEmail(user.getEmail());
 
         User newUser = UserRequestDto.toEntity(user);
 
-        userRepository.save(newUser);
+        try {
+            userRepository.saveAndFlush(newUser);
+        } catch (DataIntegrityViolationException e) {
+            if (!isEmailConflict(e)) {
+                throw e;
+            }
+            throw new ConflictException(String
+                    .format(EMAIL_ALREADY_EXISTS_MESSAGE, user.getEmail()));
+        }
+        emailFilter.put(newUser.getEmail());
+        cache.invalidateUser(newUser.getId());
 
         return UserResponseDto.toDto(newUser);
     }
@@ -45,15 +63,29 @@ public class UserService {
         List<String> emails = users.stream()
                 .map(UserRequestDto::getEmail).toList();
 
-        List<String> existingEmails = userRepository.findAllByEmailIn(emails)
-                .stream().map(User::getEmail).toList();
+        List<String> candidates = emails.stream()
+                .filter(emailFilter::mightContain).toList();
 
-        if (!existingEmails.isEmpty()) {
-            throw new ConflictException("Next emails already exist: " + existingEmails);
+        if (!candidates.isEmpty()) {
+            List<String> existingEmails = userRepository.findEmailsByEmailIn(candidates);
+            if (!existingEmails.isEmpty()) {
+                throw new ConflictException(EMAILS_ALREADY_EXIST_MESSAGE + existingEmails);
+            }
         }
 
         List<User> newUsers = UserRequestDto.toEntityList(users);
-        userRepository.saveAll(newUsers);
+        try {
+            userRepository.saveAll(newUsers);
+            userRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (!isEmailConflict(e)) {
+                throw e;
+            }
+            throw new ConflictException(EMAILS_ALREADY_EXIST_MESSAGE
+                                        + findConflictingEmails(emails));
+        }
+        emails.forEach(emailFilter::put);
+        cache.invalidateUsers(newUsers.stream().map(User::getId).toList());
 
         return UserResponseDto.toDtoList(newUsers);
     }
@@ -82,9 +114,18 @@ public class UserService {
             existingUser.setName(newUser.getName());
         }
 
-        userRepository.save(existingUser);
+        try {
+            userRepository.saveAndFlush(existingUser);
+        } catch (DataIntegrityViolationException e) {
+            if (!isEmailConflict(e)) {
+                throw e;
+            }
+            throw new ConflictException(String
+                    .format(EMAIL_ALREADY_EXISTS_MESSAGE, existingUser.getEmail()));
+        }
+        emailFilter.put(existingUser.getEmail());
 
-        cache.removeUser(id);
+        cache.invalidateUser(id);
 
         return UserResponseDto.toDto(existingUser);
     }
@@ -95,26 +136,35 @@ public class UserService {
             throw new InvalidArgumentsException(INVALID_ID_MESSAGE);
         }
 
-        if (userRepository.existsById(id)) {
-            Optional<User> user = userRepository.findById(id);
-            userRepository.deleteById(id);
-            cache.removeUser(id);
-            user.ifPresent(value -> value.getOrders()
-                    .forEach(order -> cache.removeOrder(order.getId())));
-        } else {
-            throw new NotFoundException(String.format(USER_NOT_FOUND_MESSAGE, id));
-        }
+        User user = lockUser(id);
+        userRepository.delete(user);
+        cache.invalidateUser(id);
+        user.getOrders().forEach(order -> cache.invalidateOrder(order.getId()));
     }
 
+    @Transactional(readOnly = true)
     public List<UserResponseDto> getUsers() {
-        return UserResponseDto.toDtoList(userRepository.findAll())
-                .stream().map(user -> {
-                    List<OrderResponseDto> orders = user.getOrders().stream()
-                            .sorted(Comparator.comparing(OrderResponseDto::getId))
-                            .toList();
-                    user.setOrders(orders);
-                    return user;
-                }).toList();
+        return UserResponseDto.fromRows(userRepository.findUserRows());
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserResponseDto> getUsersPageable(int page, int size) {
+        if (page < 0) {
+            throw new InvalidArgumentsException("Page number cannot be negative");
+        } else if (size <= 0) {
+            throw new InvalidArgumentsException("Page size cannot be negative or zero");
+        } else if (size > MAX_PAGE_SIZE) {
+            throw new InvalidArgumentsException("Page size cannot be greater than "
+                                                + MAX_PAGE_SIZE);
+        }
+
+        List<Long> ids = userRepository.findUserIds(
+                PageRequest.of(page, size, Sort.by("id").ascending()));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        return UserResponseDto.fromRows(userRepository.findUserRowsByIdIn(ids));
     }
 
     public UserResponseDto getUserById(Long id) {
@@ -122,18 +172,16 @@ public class UserService {
             throw new InvalidArgumentsException(INVALID_ID_MESSAGE);
         }
 
-        if (cache.containsUser(id)) {
-            return cache.getUser(id);
-        }
+        UserResponseDto user = cache.getUser(id, key -> readOnlyTransaction.execute(status ->
+                UserResponseDto.fromRows(userRepository.findUserRowsById(key)).stream()
+                        .findFirst()
+                        .orElse(null)));
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException(String
-                        .format(USER_NOT_FOUND_MESSAGE, id)));
-        UserResponseDto userDto = UserResponseDto.toDto(user);
+        if (user == null) {
+            throw new NotFoundException(String.format(USER_NOT_FOUND_MESSAGE, id));
+        }
 
-        cache.putUser(id, userDto);
-        
-        return userDto;
+        return user;
     }
 
     private User checkUser(Long id, UserRequestDto newUser) {
@@ -141,13 +189,52 @@ public class UserService {
             throw new InvalidArgumentsException(INVALID_ID_MESSAGE);
         }
 
-        if (userRepository.existsByEmail(newUser.getEmail())) {
-            throw new ConflictException(String
-                    .format(EMAIL_ALREADY_EXISTS_MESSAGE, newUser.getEmail()));
-        }
+        checkEmail(newUser.getEmail());
 
-        return userRepository.findById(id)
+        return lockUser(id);
+    }
+
+    /**
+     * Loads the user under the same lock order writes take on their owner, so that a concurrent
+     * order write cannot bump the user's version between the read and the write.
+     */
+    private User lockUser(Long id) {
+        return userRepository.lockById(id)
                 .orElseThrow(() -> new NotFoundException(String
                         .format(USER_NOT_FOUND_MESSAGE, id)));
     }
+
+    private static boolean isEmailConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return EMAIL_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks the emails up again after the batch lost a race on the unique key. The failed flush
+     * aborted the current transaction, so the lookup runs in a new one on the primary; when none
+     * of the emails is stored yet, the conflict is between duplicates inside the batch.
+     */
+    private List<String> findConflictingEmails(List<String> emails) {
+        TransactionTemplate lookup = new TransactionTemplate(
+                readOnlyTransaction.getTransactionManager());
+        lookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<String> existingEmails = lookup.execute(status ->
+                userRepository.findEmailsByEmailIn(emails));
+        if (existingEmails != null && !existingEmails.isEmpty()) {
+            return existingEmails;
+        }
+
+        Set<String> seen = new HashSet<>();
+        return emails.stream().filter(email -> !seen.add(email)).distinct().toList();
+    }
+
+    private void checkEmail(String email) {
+        if (emailFilter.mightContain(email) && userRepository.existsByEmail(email)) {
+            throw new ConflictException(String.format(EMAIL_ALREADY_EXISTS_MESSAGE, email));
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.demo.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public interface BinaryCodec<V> {
+    void write(DataOutput out, V value) throws IOException;
+
+    V read(DataInput in) throws IOException;
+}
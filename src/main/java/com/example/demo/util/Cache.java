@@ -1,17 +1,788 @@
 package com.example.demo.util;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class Cache<K, V> extends LinkedHashMap<K, V> {
-    private static final int CAPACITY = 4;
+/**
+ * Concurrent cache bounded by entry count and weight, with optional expiry after write and
+ * after access. Reads go through a {@link ConcurrentHashMap} without locking and are recorded
+ * in a lossy buffer that is replayed against the eviction policy under a lock. The policy is
+ * W-TinyLFU: new entries enter a small LRU window, and an entry leaving the window is only
+ * admitted to the segmented LRU main space if it is estimated to be accessed more often than
+ * the entry it would displace. Concurrent misses for the same key that go through
+ * {@link #get(Object, Function)} share a single load. Every key maps to a striped version
+ * stamp that {@link #invalidate(Object)} bumps, so a load that started before an invalidation
+ * can never install its result afterwards.
+ */
+public class Cache<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(Cache.class);
+    private static final int READ_BUFFER_MAX = 128;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 32;
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final double PROTECTED_PERCENT = 0.80;
+    private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+    private static final int VERSION_STRIPES = 4096;
 
-    public Cache() {
-        super(CAPACITY, 0.75f, true);
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final Queue<Node<K, V>> readBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger readBufferSize = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder mergedLoadCount = new LongAdder();
+    private final LongAdder[] removalCounts = new LongAdder[RemovalCause.values().length];
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final Queue<Removal<K, V>> pendingRemovals = new ConcurrentLinkedQueue<>();
+
+    private final long maximumSize;
+    private final long maximumWeight;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final LongSupplier ticker;
+    private final RemovalListener<K, V> removalListener;
+
+    private final FrequencySketch sketch;
+    private final LinkedDeque<K, V> window = new LinkedDeque<>();
+    private final LinkedDeque<K, V> probation = new LinkedDeque<>();
+    private final LinkedDeque<K, V> protectedQueue = new LinkedDeque<>();
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long totalWeight;
+    private volatile long count;
+
+    private Cache(Builder<K, V> builder) {
+        this.maximumSize = builder.maximumSize;
+        this.weigher = builder.weigher;
+        this.maximumWeight = builder.weigher == null ? builder.maximumSize : builder.maximumWeight;
+        this.expireAfterWriteNanos = toNanos(builder.expireAfterWrite);
+        this.expireAfterAccessNanos = toNanos(builder.expireAfterAccess);
+        this.ticker = builder.ticker;
+        this.removalListener = builder.removalListener;
+        for (int i = 0; i < removalCounts.length; i++) {
+            removalCounts[i] = new LongAdder();
+        }
+
+        this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENT);
+        this.sketch = new FrequencySketch(maximumSize != Long.MAX_VALUE
+                ? maximumSize : Math.min(maximumWeight, 1L << 20));
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    public V get(K key) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return value;
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+        if (inFlight != null) {
+            mergedLoadCount.increment();
+            return join(inFlight);
+        }
+
+        try {
+            value = getIfPresent(key);
+            if (value == null) {
+                long version = version(key);
+                value = load(key, loader);
+                if (value != null) {
+                    putIfVersion(key, value, version);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    public boolean containsKey(K key) {
+        Node<K, V> node = data.get(key);
+        return node != null && !isExpired(node, ticker.getAsLong());
+    }
+
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+
+        long now = ticker.getAsLong();
+        Node<K, V> prior = install(newNode(key, value, now), now);
+        dispatchRemovals();
+        return prior == null || isExpired(prior, now) ? null : prior.value;
+    }
+
+    public boolean putIfVersion(K key, V value, long version) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+
+        if (version(key) != version) {
+            return false;
+        }
+
+        long now = ticker.getAsLong();
+        Node<K, V> node = newNode(key, value, now);
+        install(node, now);
+        boolean accepted = version(key) == version;
+        if (!accepted) {
+            discard(node, RemovalCause.EXPLICIT);
+        }
+        dispatchRemovals();
+        return accepted;
+    }
+
+    /**
+     * Replaces a present value with {@code remapping} applied to it. The entry keeps its write
+     * time, so patching does not extend its lifetime. When {@code remapping} returns
+     * {@code null} the entry is invalidated instead.
+     */
+    public boolean update(K key, UnaryOperator<V> remapping) {
+        versions.incrementAndGet(stripe(key));
+        loading.remove(key);
+
+        while (true) {
+            Node<K, V> node = data.get(key);
+            long now = ticker.getAsLong();
+            if (node == null || isExpired(node, now)) {
+                return false;
+            }
+
+            V value = remapping.apply(node.value);
+            if (value == null) {
+                invalidate(key);
+                return false;
+            }
+            Node<K, V> replacement = new Node<>(key, value, weigh(key, value), node.writeTime,
+                    now, version(key));
+            if (!data.replace(key, node, replacement)) {
+                continue;
+            }
+
+            evictionLock.lock();
+            try {
+                if (node.queue == Node.RETIRED) {
+                    if (data.get(key) == replacement) {
+                        onAdd(replacement);
+                    }
+                } else {
+                    onReplace(node, replacement);
+                }
+                maintenance(now);
+            } finally {
+                evictionLock.unlock();
+            }
+            notifyRemoval(node, RemovalCause.REPLACED);
+            dispatchRemovals();
+            return true;
+        }
+    }
+
+    public long version(K key) {
+        return versions.get(stripe(key));
+    }
+
+    public void invalidate(K key) {
+        versions.incrementAndGet(stripe(key));
+        loading.remove(key);
+        remove(key);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        loading.clear();
+        clear();
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+
+        boolean expired = isExpired(node, ticker.getAsLong());
+        notifyRemoval(node, expired ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT);
+        dispatchRemovals();
+        return expired ? null : node.value;
+    }
+
+    public void clear() {
+        data.keySet().forEach(this::remove);
+    }
+
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance(ticker.getAsLong());
+        } finally {
+            evictionLock.unlock();
+        }
+        dispatchRemovals();
+    }
+
+    public List<K> hottestKeys(int limit) {
+        List<Node<K, V>> nodes = new ArrayList<>();
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            for (LinkedDeque<K, V> deque : List.of(protectedQueue, probation, window)) {
+                for (Node<K, V> node = deque.last; node != null; node = node.prev) {
+                    nodes.add(node);
+                }
+            }
+            nodes.sort(Comparator.comparingInt(
+                    (Node<K, V> node) -> sketch.frequency(node.key)).reversed());
+        } finally {
+            evictionLock.unlock();
+        }
+
+        long now = ticker.getAsLong();
+        return nodes.stream()
+                .filter(node -> !isExpired(node, now))
+                .limit(limit)
+                .map(node -> node.key)
+                .toList();
+    }
+
+    public long estimatedSize() {
+        return count;
+    }
+
+    public long weightedSize() {
+        return totalWeight;
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long loadCount() {
+        return loadCount.sum();
+    }
+
+    public long loadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    public long totalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    public long removalCount(RemovalCause cause) {
+        return removalCounts[cause.ordinal()].sum();
+    }
+
+    public long mergedLoadCount() {
+        return mergedLoadCount.sum();
+    }
+
+    private V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+
+        long now = ticker.getAsLong();
+        if (isExpired(node, now)) {
+            discard(node, RemovalCause.EXPIRED);
+            dispatchRemovals();
+            return null;
+        }
+
+        node.accessTime = now;
+        afterRead(node);
+        return node.value;
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        loadCount.increment();
+        long start = ticker.getAsLong();
+        try {
+            return loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            loadFailureCount.increment();
+            throw e;
+        } finally {
+            totalLoadTime.add(ticker.getAsLong() - start);
+        }
+    }
+
+    private Node<K, V> install(Node<K, V> node, long now) {
+        Node<K, V> prior = data.put(node.key, node);
+
+        evictionLock.lock();
+        try {
+            if (prior != null) {
+                unlink(prior);
+            }
+            if (data.get(node.key) == node) {
+                onAdd(node);
+            }
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+
+        if (prior != null) {
+            notifyRemoval(prior, isExpired(prior, now)
+                    ? RemovalCause.EXPIRED : RemovalCause.REPLACED);
+        }
+        return prior;
+    }
+
+    private void afterRead(Node<K, V> node) {
+        int pending = readBufferSize.get();
+        if (pending < READ_BUFFER_MAX) {
+            readBuffer.offer(node);
+            pending = readBufferSize.incrementAndGet();
+        }
+
+        if (pending >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void discard(Node<K, V> node, RemovalCause cause) {
+        if (!data.remove(node.key, node)) {
+            return;
+        }
+
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+        notifyRemoval(node, cause);
+    }
+
+    private void notifyRemoval(Node<K, V> node, RemovalCause cause) {
+        removalCounts[cause.ordinal()].increment();
+        if (removalListener != null) {
+            pendingRemovals.offer(new Removal<>(node.key, node.value, node.version, cause));
+        }
+    }
+
+    private void dispatchRemovals() {
+        Removal<K, V> removal;
+        while ((removal = pendingRemovals.poll()) != null) {
+            try {
+                removalListener.onRemoval(
+                        removal.key(), removal.value(), removal.version(), removal.cause());
+            } catch (RuntimeException e) {
+                logger.warn("[CACHE] Removal listener failed for key '{}': {}",
+                        removal.key(), e.getMessage());
+            }
+        }
+    }
+
+    private Node<K, V> newNode(K key, V value, long now) {
+        return new Node<>(key, value, weigh(key, value), now, now, version(key));
+    }
+
+    private void maintenance(long now) {
+        drainReadBuffer();
+        expireEntries(now);
+        evictEntries();
+    }
+
+    private void drainReadBuffer() {
+        Node<K, V> node;
+        while ((node = readBuffer.poll()) != null) {
+            readBufferSize.decrementAndGet();
+            onAccess(node);
+        }
+    }
+
+    private void onAdd(Node<K, V> node) {
+        sketch.increment(node.key);
+        window.addLast(node);
+        node.queue = Node.WINDOW;
+        windowWeight += node.weight;
+        totalWeight += node.weight;
+        count++;
+    }
+
+    private void onReplace(Node<K, V> node, Node<K, V> replacement) {
+        int delta = replacement.weight - node.weight;
+        switch (node.queue) {
+            case Node.WINDOW -> {
+                window.replace(node, replacement);
+                windowWeight += delta;
+            }
+            case Node.PROBATION -> probation.replace(node, replacement);
+            default -> {
+                protectedQueue.replace(node, replacement);
+                protectedWeight += delta;
+            }
+        }
+        replacement.queue = node.queue;
+        node.queue = Node.RETIRED;
+        totalWeight += delta;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW -> window.moveToEnd(node);
+            case Node.PROBATION -> {
+                probation.remove(node);
+                protectedQueue.addLast(node);
+                node.queue = Node.PROTECTED;
+                protectedWeight += node.weight;
+                demoteProtected();
+            }
+            case Node.PROTECTED -> protectedQueue.moveToEnd(node);
+            default -> {
+                return;
+            }
+        }
+        sketch.increment(node.key);
+    }
+
+    private void demoteProtected() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K, V> demoted = protectedQueue.peekFirst();
+            if (demoted == null) {
+                return;
+            }
+            protectedQueue.remove(demoted);
+            protectedWeight -= demoted.weight;
+            probation.addLast(demoted);
+            demoted.queue = Node.PROBATION;
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+            case Node.PROBATION -> probation.remove(node);
+            case Node.PROTECTED -> {
+                protectedQueue.remove(node);
+                protectedWeight -= node.weight;
+            }
+            default -> {
+                return;
+            }
+        }
+        node.queue = Node.RETIRED;
+        totalWeight -= node.weight;
+        count--;
+    }
+
+    private void expireEntries(long now) {
+        if (expireAfterWriteNanos == Long.MAX_VALUE && expireAfterAccessNanos == Long.MAX_VALUE) {
+            return;
+        }
+
+        expireHead(window, now);
+        expireHead(probation, now);
+        expireHead(protectedQueue, now);
+    }
+
+    private void expireHead(LinkedDeque<K, V> deque, long now) {
+        Node<K, V> node;
+        while ((node = deque.peekFirst()) != null && isExpired(node, now)) {
+            evict(node, RemovalCause.EXPIRED);
+        }
+    }
+
+    private void evictEntries() {
+        Node<K, V> candidate = null;
+        while (windowWeight > windowMaximum && window.peekFirst() != null) {
+            Node<K, V> node = window.peekFirst();
+            window.remove(node);
+            windowWeight -= node.weight;
+            probation.addLast(node);
+            node.queue = Node.PROBATION;
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+
+        while (totalWeight > maximumWeight || count > maximumSize) {
+            Node<K, V> victim = firstNonNull(
+                    probation.peekFirst(), protectedQueue.peekFirst(), window.peekFirst());
+            if (victim == null) {
+                return;
+            }
+
+            if (candidate == victim) {
+                candidate = candidate.next;
+            } else if (candidate != null && victim.queue == Node.PROBATION
+                    && !admit(candidate.key, victim.key)) {
+                Node<K, V> rejected = candidate;
+                candidate = candidate.next;
+                evict(rejected, RemovalCause.SIZE);
+                continue;
+            }
+            evict(victim, RemovalCause.SIZE);
+        }
+    }
+
+    private boolean admit(K candidateKey, K victimKey) {
+        int victimFrequency = sketch.frequency(victimKey);
+        int candidateFrequency = sketch.frequency(candidateKey);
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        } else if (candidateFrequency < ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
     }
 
-    @Override
-    public boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-        return size() > CAPACITY;
+    private void evict(Node<K, V> node, RemovalCause cause) {
+        if (data.remove(node.key, node)) {
+            notifyRemoval(node, cause);
+        }
+        unlink(node);
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return now - node.writeTime >= expireAfterWriteNanos
+                || now - node.accessTime >= expireAfterAccessNanos;
+    }
+
+    private int weigh(K key, V value) {
+        return weigher == null ? 1 : Math.max(1, weigher.applyAsInt(key, value));
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @SafeVarargs
+    private static <K, V> Node<K, V> firstNonNull(Node<K, V>... nodes) {
+        for (Node<K, V> node : nodes) {
+            if (node != null) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static long toNanos(Duration duration) {
+        return duration == null || duration.isZero() ? Long.MAX_VALUE : duration.toNanos();
+    }
+
+    private static final class Node<K, V> {
+        static final int RETIRED = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+
+        final K key;
+        final V value;
+        final int weight;
+        final long writeTime;
+        final long version;
+        volatile long accessTime;
+
+        Node<K, V> prev;
+        Node<K, V> next;
+        int queue;
+
+        Node(K key, V value, int weight, long writeTime, long accessTime, long version) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+            this.version = version;
+            this.accessTime = accessTime;
+        }
+    }
+
+    private record Removal<K, V>(K key, V value, long version, RemovalCause cause) {}
+
+    private static final class LinkedDeque<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void replace(Node<K, V> node, Node<K, V> replacement) {
+            replacement.prev = node.prev;
+            replacement.next = node.next;
+            if (node.prev == null) {
+                first = replacement;
+            } else {
+                node.prev.next = replacement;
+            }
+            if (node.next == null) {
+                last = replacement;
+            } else {
+                node.next.prev = replacement;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToEnd(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    public static final class Builder<K, V> {
+        private long maximumSize = Long.MAX_VALUE;
+        private long maximumWeight = Long.MAX_VALUE;
+        private ToIntBiFunction<? super K, ? super V> weigher;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        private LongSupplier ticker = System::nanoTime;
+        private RemovalListener<K, V> removalListener;
+
+        private Builder() {}
+
+        public Builder<K, V> maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        public Builder<K, V> weigher(ToIntBiFunction<? super K, ? super V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        public Builder<K, V> expireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        public Builder<K, V> expireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        public Builder<K, V> ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public Builder<K, V> removalListener(RemovalListener<K, V> removalListener) {
+            this.removalListener = removalListener;
+            return this;
+        }
+
+        public Cache<K, V> build() {
+            if (maximumSize <= 0 || maximumWeight <= 0) {
+                throw new IllegalStateException("Cache bounds must be positive");
+            }
+            if (maximumSize == Long.MAX_VALUE
+                    && (weigher == null || maximumWeight == Long.MAX_VALUE)) {
+                throw new IllegalStateException("Cache must be bounded by size or weight");
+            }
+            return new Cache<>(this);
+        }
     }
 }
@@ -0,0 +1,284 @@
+package com.example.demo.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Extracts a time range from the active log file and the segments Logback rotated out of it,
+ * named {@code <file>.<yyyy-MM-dd>.<index>} and optionally gzip-compressed. Segments dated
+ * inside the range are decompressed and filtered in parallel on a fork-join pool, each into
+ * its own temporary file, and appended to the output in chronological order as soon as the
+ * preceding ones are done; the active file is served last through its {@link LogIndex}.
+ */
+public class LogArchive implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final LogIndex current;
+    private final Pattern segmentName;
+    private final ForkJoinPool pool;
+
+    public LogArchive(LogIndex current, int parallelism) {
+        this.current = current;
+        // While Logback compresses a segment, it reads from <file>.<date>.<index><nanos>.tmp
+        // and writes the .gz. The .tmp source is deliberately not matched, and the unfinished
+        // .gz ends early, so an extract taken in that window, usually well under a second,
+        // fails with an EOFException and has to be requested again.
+        this.segmentName = Pattern.compile(Pattern.quote(current.file().getFileName().toString())
+                + "\\.(\\d{4}-\\d{2}-\\d{2})(?:\\.(\\d+))?(\\.gz)?");
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Rotated segments whose date falls in {@code [from, to)}, oldest first.
+     */
+    @SuppressWarnings("checkstyle:CatchParameterName")
+    public List<Path> segments(String from, String to) throws IOException {
+        Path directory = current.file().toAbsolutePath().getParent();
+        String fromDate = from.substring(0, Math.min(10, from.length()));
+        List<Segment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                Matcher matcher = segmentName.matcher(path.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+
+                String date = matcher.group(1);
+                if (date.compareTo(fromDate) >= 0 && date.compareTo(to) < 0) {
+                    int index = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+                    segments.add(new Segment(path, date, index));
+                }
+            }
+        } catch (NoSuchFileException _) {
+            return List.of();
+        }
+
+        segments.sort(Comparator.comparing(Segment::date).thenComparingInt(Segment::index));
+        return segments.stream().map(Segment::path).toList();
+    }
+
+    public long extract(String from, String to, WritableByteChannel out,
+                        LogIndex.Progress progress) throws IOException {
+        List<Path> segments = segments(from, to);
+        long segmentBytes = 0;
+        for (Path segment : segments) {
+            segmentBytes += Files.size(segment);
+        }
+
+        long written = 0;
+        if (!segments.isEmpty()) {
+            written = extractSegments(segments, from, to, out, progress,
+                    segmentBytes + currentSize());
+        }
+
+        long scanned = segmentBytes;
+        return written + current.extract(from, to, out, (copied, total) ->
+                progress.onProgress(scanned + copied, scanned + total));
+    }
+
+    /**
+     * Writes the lines of {@code [from, to)} straight to {@code out}: the segments are scanned
+     * one after another instead of in parallel, so nothing is staged on disk and the first
+     * bytes go out right away. Meant for streaming responses.
+     */
+    public void stream(String from, String to, OutputStream out) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        for (Path segment : segments(from, to)) {
+            try (InputStream in = openSegment(segment)) {
+                filter(in, buffered, from, to, cancelled);
+            }
+        }
+        buffered.flush();
+        current.extract(from, to, Channels.newChannel(out));
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    @SuppressWarnings("checkstyle:CatchParameterName")
+    private long currentSize() throws IOException {
+        try {
+            return Files.size(current.file());
+        } catch (NoSuchFileException _) {
+            return 0;
+        }
+    }
+
+    private long extractSegments(List<Path> segments, String from, String to,
+                                 WritableByteChannel out, LogIndex.Progress progress,
+                                 long estimatedTotal) throws IOException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<ForkJoinTask<Path>> tasks = segments.stream()
+                .map(segment -> pool.submit(() -> filter(segment, from, to, cancelled)))
+                .toList();
+
+        long written = 0;
+        long scanned = 0;
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                Path filtered = tasks.get(i).get();
+                try (FileChannel channel = FileChannel.open(filtered, StandardOpenOption.READ)) {
+                    long size = channel.size();
+                    for (long position = 0; position < size; ) {
+                        position += channel.transferTo(position, size - position, out);
+                    }
+                    written += size;
+                }
+                Files.delete(filtered);
+                scanned += Files.size(segments.get(i));
+                progress.onProgress(scanned, estimatedTotal);
+            }
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Could not scan log segment", e.getCause());
+        } finally {
+            // Cancelling a running fork-join task does not stop it, so every task is told to
+            // stop and waited for: those that fail delete their own output, the others leave
+            // it to be deleted here.
+            cancelled.set(true);
+            for (ForkJoinTask<Path> task : tasks) {
+                task.quietlyJoin();
+                if (!task.isCompletedAbnormally()) {
+                    Files.deleteIfExists(task.join());
+                }
+            }
+        }
+    }
+
+    private static Path filter(Path segment, String from, String to, AtomicBoolean cancelled) {
+        try {
+            if (cancelled.get()) {
+                throw new InterruptedIOException("Extraction was cancelled");
+            }
+
+            Path filtered = Files.createTempFile("log-segment", ".tmp");
+            try (InputStream in = openSegment(segment);
+                 OutputStream out = new BufferedOutputStream(
+                         Files.newOutputStream(filtered), BUFFER_SIZE)) {
+                filter(in, out, from, to, cancelled);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(filtered);
+                throw e;
+            }
+            return filtered;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream openSegment(Path segment) throws IOException {
+        InputStream raw = Files.newInputStream(segment);
+        if (!segment.toString().endsWith(".gz")) {
+            return raw;
+        }
+
+        try {
+            return new GZIPInputStream(raw, BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the lines whose timestamp is in {@code [from, to)} together with the continuation
+     * lines that follow them, byte for byte.
+     */
+    static void filter(InputStream in, OutputStream out, String from, String to,
+                       AtomicBoolean cancelled) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] pending = new byte[256];
+        int pendingLength = 0;
+        boolean include = false;
+
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            if (cancelled.get()) {
+                throw new InterruptedIOException("Extraction was cancelled");
+            }
+
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+
+                int length = i + 1 - lineStart;
+                if (pendingLength == 0) {
+                    include = includes(buffer, lineStart, length, include, from, to);
+                    if (include) {
+                        out.write(buffer, lineStart, length);
+                    }
+                } else {
+                    pending = append(pending, pendingLength, buffer, lineStart, length);
+                    pendingLength += length;
+                    include = includes(pending, 0, pendingLength, include, from, to);
+                    if (include) {
+                        out.write(pending, 0, pendingLength);
+                    }
+                    pendingLength = 0;
+                }
+                lineStart = i + 1;
+            }
+
+            pending = append(pending, pendingLength, buffer, lineStart, read - lineStart);
+            pendingLength += read - lineStart;
+        }
+
+        if (pendingLength > 0 && includes(pending, 0, pendingLength, include, from, to)) {
+            out.write(pending, 0, pendingLength);
+        }
+    }
+
+    private static boolean includes(byte[] line, int offset, int length, boolean previous,
+                                    String from, String to) {
+        String key = LogIndex.readKey(line, offset, length);
+        if (key == null) {
+            return previous;
+        }
+        return key.compareTo(from) >= 0 && key.compareTo(to) < 0;
+    }
+
+    private static byte[] append(byte[] target, int targetLength, byte[] source, int offset,
+                                 int length) {
+        if (targetLength + length > target.length) {
+            target = Arrays.copyOf(target, Math.max(target.length * 2, targetLength + length));
+        }
+        System.arraycopy(source, offset, target, targetLength, length);
+        return target;
+    }
+
+    private record Segment(Path path, String date, int index) {}
+}
@@ -0,0 +1,250 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sparse index from timestamp to byte offset over an append-only log whose lines start with an
+ * ISO-8601 timestamp. An entry is recorded for the first timestamped line after every
+ * {@code stride} bytes, so locating either end of a range scans at most about one stride of
+ * the memory-mapped file, and extracting it costs the size of the output. Each call picks up
+ * what was appended since the previous one; if the file shrinks or is replaced by rotation the
+ * index starts over. Files are told apart by their first line, read through the channel being
+ * indexed, so a channel opened just before a rotation is never mistaken for the new file.
+ */
+public class LogIndex {
+    private static final int KEY_LENGTH = 19;
+    private static final long COPY_CHUNK = 8L << 20;
+    private static final int HEAD_LENGTH = 256;
+
+    private final Path file;
+    private final long stride;
+    private String fileKey = "";
+    private long indexedLength;
+    private long[] offsets = new long[64];
+    private String[] keys = new String[64];
+    private int size;
+
+    public LogIndex(Path file, long stride) {
+        if (stride <= 0) {
+            throw new IllegalArgumentException("Index stride must be positive: " + stride);
+        }
+        this.file = file;
+        this.stride = stride;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public FileChannel open() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Finds the byte range of {@code channel}, which must be open on this index's file, holding
+     * every line whose timestamp is in {@code [from, to)} together with the untimestamped
+     * continuation lines (stack traces) that follow them. Bounds are compared as strings, so
+     * any ISO-8601 prefix such as {@code 2025-04-07} works.
+     */
+    public Range locate(FileChannel channel, String from, String to) throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            synchronized (this) {
+                refresh(channel, arena);
+                long start = locate(channel, arena, from);
+                return new Range(start, Math.max(start, locate(channel, arena, to)));
+            }
+        }
+    }
+
+    public long extract(String from, String to, WritableByteChannel out) throws IOException {
+        return extract(from, to, out, (copied, total) -> { });
+    }
+
+    /**
+     * Same as {@link #extract(String, String, WritableByteChannel)}, reporting progress after
+     * every chunk and stopping with {@link InterruptedIOException} once the thread is
+     * interrupted.
+     */
+    @SuppressWarnings("checkstyle:CatchParameterName")
+    public long extract(String from, String to, WritableByteChannel out, Progress progress)
+            throws IOException {
+        try (FileChannel channel = open();
+             Arena arena = Arena.ofConfined()) {
+            Range range = locate(channel, from, to);
+            progress.onProgress(0, range.length());
+            if (range.length() == 0) {
+                return 0;
+            }
+
+            MemorySegment slice = channel.map(FileChannel.MapMode.READ_ONLY, range.start(),
+                    range.length(), arena);
+            for (long offset = 0; offset < slice.byteSize(); offset += COPY_CHUNK) {
+                ByteBuffer buffer = slice.asSlice(offset,
+                        Math.min(COPY_CHUNK, slice.byteSize() - offset)).asByteBuffer();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Extraction was interrupted");
+                }
+                progress.onProgress(offset + buffer.limit(), range.length());
+            }
+            return range.length();
+        } catch (NoSuchFileException _) {
+            return 0;
+        }
+    }
+
+    /**
+     * Identity of the file indexed by the last refresh, so that offsets can be told apart across
+     * rotations.
+     */
+    public synchronized Object fileKey() {
+        return fileKey;
+    }
+
+    public synchronized int entryCount() {
+        return size;
+    }
+
+    private void refresh(FileChannel channel, Arena arena) throws IOException {
+        long length = channel.size();
+        String currentKey = readHead(channel, length);
+        if (length < indexedLength || !currentKey.equals(fileKey)) {
+            fileKey = currentKey;
+            indexedLength = 0;
+            size = 0;
+        }
+        if (length == indexedLength) {
+            return;
+        }
+
+        MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, indexedLength,
+                length - indexedLength, arena);
+        long lineStart = 0;
+        for (long i = 0; i < segment.byteSize(); i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, i) != '\n') {
+                continue;
+            }
+
+            long absolute = indexedLength + lineStart;
+            if (size == 0 || absolute - offsets[size - 1] >= stride) {
+                String key = readKey(segment, lineStart, i);
+                if (key != null) {
+                    add(absolute, key);
+                }
+            }
+            lineStart = i + 1;
+        }
+        indexedLength += lineStart;
+    }
+
+    /**
+     * Returns the first line of the file behind {@code channel}, cut at {@link #HEAD_LENGTH}
+     * bytes, or an empty string while that line is incomplete. Log lines start with a
+     * millisecond timestamp, so two files practically never share it.
+     */
+    private static String readHead(FileChannel channel, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(HEAD_LENGTH, length));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                return "";
+            }
+        }
+
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return new String(bytes, 0, i + 1, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return bytes.length == HEAD_LENGTH
+                ? new String(bytes, StandardCharsets.ISO_8859_1)
+                : "";
+    }
+
+    private long locate(FileChannel channel, Arena arena, String bound) throws IOException {
+        int entry = Arrays.binarySearch(keys, 0, size, bound);
+        int floor = (entry >= 0 ? entry : -entry - 1) - 1;
+        while (floor >= 0 && keys[floor].compareTo(bound) >= 0) {
+            floor--;
+        }
+        long from = floor >= 0 ? offsets[floor] : 0;
+        if (from >= indexedLength) {
+            return indexedLength;
+        }
+
+        MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, from,
+                indexedLength - from, arena);
+        long lineStart = 0;
+        for (long i = 0; i < segment.byteSize(); i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, i) != '\n') {
+                continue;
+            }
+
+            String key = readKey(segment, lineStart, i);
+            if (key != null && key.compareTo(bound) >= 0) {
+                return from + lineStart;
+            }
+            lineStart = i + 1;
+        }
+        return indexedLength;
+    }
+
+    private void add(long offset, String key) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        offsets[size] = offset;
+        keys[size] = key;
+        size++;
+    }
+
+    /**
+     * Returns the timestamp prefix of the line stored in {@code bytes}, or {@code null} for a
+     * continuation line that does not start with a date.
+     */
+    static String readKey(byte[] bytes, int offset, int lineLength) {
+        int length = Math.min(KEY_LENGTH, lineLength);
+        if (length < 10 || !isDigit(bytes[offset]) || !isDigit(bytes[offset + 3])
+                || bytes[offset + 4] != '-' || bytes[offset + 7] != '-') {
+            return null;
+        }
+        return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+    }
+
+    private static String readKey(MemorySegment segment, long lineStart, long lineEnd) {
+        int length = (int) Math.min(KEY_LENGTH, lineEnd - lineStart);
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, lineStart, bytes, 0, length);
+        return readKey(bytes, 0, length);
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+
+    @FunctionalInterface
+    public interface Progress {
+        void onProgress(long copied, long total);
+    }
+
+    public record Range(long start, long end) {
+        public long length() {
+            return end - start;
+        }
+    }
+}
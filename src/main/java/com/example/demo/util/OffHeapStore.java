@@ -0,0 +1,213 @@
+package com.example.demo.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Byte-budgeted store that keeps values serialized in a single off-heap {@link MemorySegment}.
+ * The segment is used as a ring log: every write is appended as a {@code [key][length][bytes]}
+ * record, and once the log wraps around the oldest records are overwritten, so the store
+ * behaves as a FIFO bounded by {@code capacity} bytes. Only the key to offset index lives on
+ * the heap.
+ */
+public class OffHeapStore<V> implements AutoCloseable {
+    private static final long HEADER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int PADDING = -1;
+
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment segment;
+    private final long capacity;
+    private final BinaryCodec<V> codec;
+    private final Map<Long, Long> index = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long head;
+    private long tail;
+    private long used;
+    private boolean closed;
+
+    public OffHeapStore(long capacity, BinaryCodec<V> codec) {
+        if (capacity <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Off-heap capacity is too small: " + capacity);
+        }
+        this.capacity = capacity;
+        this.codec = codec;
+        this.segment = arena.allocate(capacity, Long.BYTES);
+    }
+
+    public boolean put(long key, V value) {
+        byte[] bytes = encode(value);
+        long size = HEADER_BYTES + bytes.length;
+        if (size > capacity) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return false;
+            }
+
+            long offset = allocate(size);
+            segment.set(ValueLayout.JAVA_LONG_UNALIGNED, offset, key);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, offset + Long.BYTES, bytes.length);
+            MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE,
+                    offset + HEADER_BYTES, bytes.length);
+            index.put(key, offset);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public V get(long key) {
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            Long offset = index.get(key);
+            if (closed || offset == null) {
+                return null;
+            }
+
+            int length = segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset + Long.BYTES);
+            bytes = new byte[length];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset + HEADER_BYTES,
+                    bytes, 0, length);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return decode(bytes);
+    }
+
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            index.remove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            head = 0;
+            tail = 0;
+            used = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return used;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                index.clear();
+                arena.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long allocate(long size) {
+        while (true) {
+            if (used == 0) {
+                head = 0;
+                tail = 0;
+            }
+
+            boolean wrapped = tail < head || (tail == head && used > 0);
+            if (!wrapped) {
+                if (capacity - tail >= size) {
+                    break;
+                }
+                if (capacity - tail >= HEADER_BYTES) {
+                    segment.set(ValueLayout.JAVA_INT_UNALIGNED, tail + Long.BYTES, PADDING);
+                }
+                used += capacity - tail;
+                tail = 0;
+            } else if (head - tail >= size) {
+                break;
+            } else {
+                reclaimOldest();
+            }
+        }
+
+        long offset = tail;
+        tail += size;
+        used += size;
+        return offset;
+    }
+
+    private void reclaimOldest() {
+        long remaining = capacity - head;
+        if (remaining < HEADER_BYTES
+                || segment.get(ValueLayout.JAVA_INT_UNALIGNED, head + Long.BYTES) == PADDING) {
+            used -= remaining;
+            head = 0;
+            return;
+        }
+
+        long key = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, head);
+        long size = HEADER_BYTES
+                + segment.get(ValueLayout.JAVA_INT_UNALIGNED, head + Long.BYTES);
+        index.remove(key, head);
+        head += size;
+        used -= size;
+    }
+
+    private byte[] encode(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            codec.write(out, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private V decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return codec.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
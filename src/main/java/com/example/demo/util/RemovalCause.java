@@ -0,0 +1,8 @@
+package com.example.demo.util;
+
+public enum RemovalCause {
+    EXPLICIT,
+    REPLACED,
+    EXPIRED,
+    SIZE
+}
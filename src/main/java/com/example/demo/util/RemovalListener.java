@@ -0,0 +1,11 @@
+package com.example.demo.util;
+
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+    /**
+     * Called after an entry left the cache, outside the eviction lock. {@code version} is the
+     * stamp the entry was written under; if {@link Cache#version(Object)} no longer matches it,
+     * the key has been invalidated since.
+     */
+    void onRemoval(K key, V value, long version, RemovalCause cause);
+}
@@ -0,0 +1,17 @@
+-- Matches the schema Hibernate used to generate, so databases created before
+-- migrations existed are left untouched.
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 500;
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 500;
+
+CREATE TABLE IF NOT EXISTS users (
+    id    BIGINT       NOT NULL PRIMARY KEY,
+    name  VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id          BIGINT           NOT NULL PRIMARY KEY,
+    description VARCHAR(255)     NOT NULL,
+    price       DOUBLE PRECISION NOT NULL,
+    user_id     BIGINT           NOT NULL REFERENCES users (id)
+);
@@ -0,0 +1,6 @@
+-- Tables created with IDENTITY ids already hold rows; move the sequences past them.
+SELECT setval('users_seq', (SELECT MAX(id) FROM users))
+WHERE (SELECT last_value FROM users_seq) < (SELECT COALESCE(MAX(id), 0) FROM users);
+
+SELECT setval('orders_seq', (SELECT MAX(id) FROM orders))
+WHERE (SELECT last_value FROM orders_seq) < (SELECT COALESCE(MAX(id), 0) FROM orders);
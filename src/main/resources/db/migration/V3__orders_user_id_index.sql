@@ -0,0 +1,6 @@
+-- Serves findOrderDtosByUserId, findOrderDtosByUserIdAfter, the User.orders join and
+-- the cascade on user deletion. Built without blocking writes to orders.
+-- An interrupted concurrent build leaves an INVALID index behind that IF NOT EXISTS would
+-- accept, so any leftover is dropped and the index is always built afresh.
+DROP INDEX CONCURRENTLY IF EXISTS idx_orders_user_id_id;
+CREATE INDEX CONCURRENTLY idx_orders_user_id_id ON orders (user_id, id);
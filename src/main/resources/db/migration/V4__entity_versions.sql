@@ -0,0 +1,3 @@
+-- Optimistic-lock versions; the user version also moves on every change to its orders.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,20 @@
+-- Databases created by Hibernate name the unique key on users.email UK<hash>. Give it the name
+-- V1 produces, which UserService uses to tell email conflicts from other violations.
+DO $$
+DECLARE
+    existing TEXT;
+BEGIN
+    SELECT c.conname INTO existing
+    FROM pg_constraint c
+    JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+    WHERE c.conrelid = 'users'::regclass
+      AND c.contype = 'u'
+      AND cardinality(c.conkey) = 1
+      AND a.attname = 'email'
+    ORDER BY c.conname = 'users_email_key' DESC
+    LIMIT 1;
+
+    IF existing IS NOT NULL AND existing <> 'users_email_key' THEN
+        EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO users_email_key', existing);
+    END IF;
+END $$;
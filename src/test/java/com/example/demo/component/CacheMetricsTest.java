@@ -0,0 +1,46 @@
+package com.example.demo.component;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.example.demo.config.CacheProperties;
+import com.example.demo.config.RoutingProperties;
+import com.example.demo.dto.UserResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class CacheMetricsTest {
+    @Test
+    void bindTo_whenCacheIsUsed_publishesPerCacheMeters() {
+        LoopbackInvalidationBus bus = new LoopbackInvalidationBus(Duration.ofHours(1));
+        CacheProperties.Spec spec = new CacheProperties.Spec(
+                100, DataSize.ofMegabytes(1), Duration.ofMinutes(10), Duration.ofMinutes(5));
+        CustomCache cache = new CustomCache(new CacheProperties(spec, spec, spec,
+                new CacheProperties.MissingSpec(100, Duration.ofSeconds(30)), 100, true,
+                null, null), bus, new ReadYourWrites(new RoutingProperties(List.of(),
+                Duration.ofSeconds(5), Duration.ofSeconds(1), Duration.ofSeconds(10), 100)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new CacheMetrics(cache).bindTo(registry);
+
+        cache.getUser(1L, id -> {
+            UserResponseDto user = new UserResponseDto();
+            user.setId(id);
+            return user;
+        });
+        cache.getUser(1L, id -> null);
+        bus.close();
+
+        assertEquals(1.0, registry.get("cache.gets")
+                .tags("cache", "users", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets")
+                .tags("cache", "users", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.load.duration")
+                .tag("cache", "users").functionTimer().count());
+        assertEquals(1.0, registry.get("cache.size").tag("cache", "users").gauge().value());
+        assertTrue(registry.get("cache.weight").tag("cache", "users").gauge().value() > 0);
+        assertNull(registry.find("cache.weight").tag("cache", "missing-users").gauge());
+        assertEquals(0.0, registry.get("cache.removals")
+                .tags("cache", "users", "cause", "size").functionCounter().count());
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.demo.component;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.example.demo.config.CacheProperties;
+import com.example.demo.config.RoutingProperties;
+import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.UserResponseDto;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.util.unit.DataSize;
+
+class CustomCacheTest {
+    private LoopbackInvalidationBus bus;
+    private CustomCache cache;
+
+    @BeforeEach
+    void setUp() {
+        bus = new LoopbackInvalidationBus(Duration.ofHours(1));
+        cache = newCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+        bus.close();
+    }
+
+    @Test
+    void getUser_whenLoaderFindsNothing_cachesMiss() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.getUser(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.getUser(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getUser_whenMissWasCleared_loadsAgain() {
+        assertNull(cache.getUser(1L, id -> null));
+
+        cache.invalidateUser(1L);
+        UserResponseDto user = cache.getUser(1L, CustomCacheTest::user);
+
+        assertNotNull(user);
+        assertEquals(1L, user.getId());
+    }
+
+    @Test
+    void getOrder_whenLoaderFindsNothing_cachesMiss() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrder(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        cache.getOrder(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        cache.invalidateOrder(1L);
+        cache.getOrder(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateUser_whenTransactionIsActive_waitsForCommit() {
+        cache.putUser(1L, user(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateUser(1L);
+            assertTrue(cache.containsUser(1L));
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(cache.containsUser(1L));
+    }
+
+    @Test
+    void getUser_whenInvalidatedDuringLoad_doesNotCacheStaleValue() {
+        UserResponseDto loaded = cache.getUser(1L, id -> {
+            cache.invalidateUser(id);
+            return user(id);
+        });
+
+        assertNotNull(loaded);
+        assertFalse(cache.containsUser(1L));
+    }
+
+    @Test
+    void writeOrder_whenUserIsCached_patchesOrdersInPlace() {
+        UserResponseDto cached = user(1L);
+        cached.setOrders(List.of(order(10L, "TV")));
+        cache.getUser(1L, id -> cached);
+
+        cache.writeOrder(1L, 1L, order(10L, "Fridge"));
+        cache.writeOrder(1L, 2L, order(11L, "Phone"));
+
+        UserResponseDto patched = cache.getUser(1L);
+        assertEquals(List.of(10L, 11L),
+                patched.getOrders().stream().map(OrderResponseDto::getId).toList());
+        assertEquals("Fridge", patched.getOrders().getFirst().getDescription());
+        assertEquals("TV", cached.getOrders().getFirst().getDescription());
+        assertEquals(1L, cache.getOrderOwner(11L));
+    }
+
+    @Test
+    void deleteOrder_whenUserIsCached_removesOrderFromUser() {
+        UserResponseDto cached = user(1L);
+        cached.setOrders(List.of(order(10L, "TV"), order(11L, "Phone")));
+        cache.getUser(1L, id -> cached);
+        cache.putOrder(10L, order(10L, "TV"));
+
+        assertEquals(1L, cache.getOrderOwner(10L));
+        cache.deleteOrder(1L, 1L, 10L);
+
+        assertEquals(List.of(11L),
+                cache.getUser(1L).getOrders().stream().map(OrderResponseDto::getId).toList());
+        assertFalse(cache.containsOrder(10L));
+        assertNull(cache.getOrderOwner(10L));
+    }
+
+    @Test
+    void invalidateUser_whenBusIsFlushed_evictsUserOnPeer() {
+        CustomCache peer = newCache();
+        cache.putUser(1L, user(1L));
+        peer.putUser(1L, user(1L));
+
+        cache.invalidateUser(1L);
+        assertTrue(peer.containsUser(1L));
+
+        bus.flush();
+        assertFalse(peer.containsUser(1L));
+    }
+
+    @Test
+    void invalidateUsers_whenTransactionIsActive_publishesOneBatchAfterCommit() {
+        CustomCache peer = newCache();
+        List<List<Invalidation>> batches = new ArrayList<>();
+        bus.subscribe(new InvalidationBus.Listener() {
+            @Override
+            public void onInvalidation(List<Invalidation> batch) {
+                batches.add(batch);
+            }
+
+            @Override
+            public void onReset() {
+            }
+        });
+        peer.putUser(1L, user(1L));
+        peer.putUser(2L, user(2L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateUsers(List.of(1L, 2L));
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        bus.flush();
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.getFirst().size());
+        assertFalse(peer.containsUser(1L));
+        assertFalse(peer.containsUser(2L));
+    }
+
+    @Test
+    void writeOrder_whenBusIsFlushed_evictsOwnerOnPeerButKeepsLocalPatch() {
+        CustomCache peer = newCache();
+        UserResponseDto cached = user(1L);
+        cached.setOrders(List.of(order(10L, "TV")));
+        cache.getUser(1L, id -> cached);
+        peer.getUser(1L, id -> cached);
+
+        cache.writeOrder(1L, 1L, order(10L, "Fridge"));
+        bus.flush();
+
+        assertFalse(peer.containsUser(1L));
+        assertEquals("Fridge", cache.getUser(1L).getOrders().getFirst().getDescription());
+    }
+
+    @Test
+    void getUser_whenEvictedBySize_servesFromOffHeapWithoutLoading() {
+        CustomCache small = newCache(10);
+        AtomicInteger loads = new AtomicInteger();
+        for (long id = 1; id <= 100; id++) {
+            small.getUser(id, CustomCacheTest::user);
+        }
+        small.getUserCache().cleanUp();
+
+        for (long id = 1; id <= 100; id++) {
+            UserResponseDto user = small.getUser(id, key -> {
+                loads.incrementAndGet();
+                return user(key);
+            });
+            assertEquals(id, user.getId());
+            assertEquals("JohnDoe@mail.ru", user.getEmail());
+        }
+        small.close();
+
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void getUser_whenOffHeapCopyWasInvalidated_loadsAgain() {
+        CustomCache small = newCache(10);
+        for (long id = 1; id <= 100; id++) {
+            small.getUser(id, CustomCacheTest::user);
+        }
+        small.getUserCache().cleanUp();
+        long demoted = 0;
+        for (long id = 1; id <= 100; id++) {
+            if (!small.containsUser(id)) {
+                demoted = id;
+                break;
+            }
+        }
+
+        small.invalidateUser(demoted);
+        AtomicInteger loads = new AtomicInteger();
+        small.getUser(demoted, key -> {
+            loads.incrementAndGet();
+            return user(key);
+        });
+        small.close();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void writeOrders_whenUserIsCached_appendsAllOrders() {
+        UserResponseDto cached = user(1L);
+        cached.setOrders(List.of(order(10L, "TV")));
+        cache.getUser(1L, id -> cached);
+
+        cache.writeOrders(1L, 1L, List.of(order(10L, "Radio"), order(11L, "Fridge")));
+
+        List<OrderResponseDto> orders = cache.getUser(1L).getOrders();
+        assertEquals(List.of("Radio", "Fridge"),
+                orders.stream().map(OrderResponseDto::getDescription).toList());
+        assertEquals(1L, cache.getOrderOwner(11L));
+    }
+
+    @Test
+    void writeOrders_whenIdsInterleave_keepsOrdersSortedById() {
+        UserResponseDto cached = user(1L);
+        cached.setOrders(List.of(order(10L, "TV"), order(501L, "Radio")));
+        cache.getUser(1L, id -> cached);
+
+        cache.writeOrders(1L, 1L, List.of(order(502L, "Phone"), order(11L, "Fridge")));
+
+        assertEquals(List.of(10L, 11L, 501L, 502L), cache.getUser(1L).getOrders().stream()
+                .map(OrderResponseDto::getId).toList());
+    }
+
+    @Test
+    void writeOrder_whenPatchIsOlderThanCachedValue_invalidatesInsteadOfReplacing() {
+        UserResponseDto cached = user(1L);
+        cached.setVersion(5L);
+        cache.getUser(1L, id -> cached);
+        OrderResponseDto cachedOrder = order(10L, "Fridge");
+        cachedOrder.setVersion(3L);
+        cache.getOrder(10L, id -> cachedOrder);
+
+        OrderResponseDto stale = order(10L, "TV");
+        stale.setVersion(2L);
+        cache.writeOrder(1L, 4L, stale);
+
+        assertFalse(cache.containsUser(1L));
+        assertFalse(cache.containsOrder(10L));
+    }
+
+    @Test
+    void writeOrder_whenPatchIsNewer_replacesCachedValues() {
+        cache.getUser(1L, CustomCacheTest::user);
+        cache.getOrder(10L, id -> order(10L, "TV"));
+
+        OrderResponseDto updated = order(10L, "Fridge");
+        updated.setVersion(1L);
+        cache.writeOrder(1L, 1L, updated);
+
+        assertEquals(1L, cache.getUser(1L).getVersion());
+        assertEquals("Fridge", cache.getOrder(10L).getDescription());
+    }
+
+    @Test
+    void getOrdersPage_whenOrderWasWritten_reloadsAffectedPages() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Page<OrderResponseDto>> loader = () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(List.of(order(10L, "TV")));
+        };
+        cache.getOrdersPage(null, 0, 10, loader);
+        cache.getOrdersPage(1L, 0, 10, loader);
+        cache.getOrdersPage(2L, 0, 10, loader);
+
+        cache.writeOrder(1L, 1L, order(11L, "Fridge"));
+        cache.getOrdersPage(null, 0, 10, loader);
+        cache.getOrdersPage(1L, 0, 10, loader);
+        cache.getOrdersPage(2L, 0, 10, loader);
+
+        assertEquals(5, loads.get());
+    }
+
+    private CustomCache newCache() {
+        return newCache(100);
+    }
+
+    private CustomCache newCache(long maximumUsers) {
+        CacheProperties.Spec users = new CacheProperties.Spec(maximumUsers,
+                DataSize.ofMegabytes(1), Duration.ofMinutes(10), Duration.ofMinutes(5));
+        CacheProperties.Spec orders = new CacheProperties.Spec(
+                100, DataSize.ofMegabytes(1), Duration.ofMinutes(10), Duration.ofMinutes(5));
+        return new CustomCache(new CacheProperties(users, orders, orders,
+                new CacheProperties.MissingSpec(100, Duration.ofSeconds(30)), 100, true,
+                new CacheProperties.OffHeapSpec(true, DataSize.ofMegabytes(1)), null), bus,
+                new ReadYourWrites(new RoutingProperties(List.of(), Duration.ofSeconds(5),
+                        Duration.ofSeconds(1), Duration.ofSeconds(10), 100)));
+    }
+
+    private static UserResponseDto user(Long id) {
+        UserResponseDto user = new UserResponseDto();
+        user.setId(id);
+        user.setName("John");
+        user.setEmail("JohnDoe@mail.ru");
+        user.setOrders(new ArrayList<>());
+        user.setVersion(0L);
+        return user;
+    }
+
+    private static OrderResponseDto order(Long id, String description) {
+        OrderResponseDto order = new OrderResponseDto();
+        order.setId(id);
+        order.setDescription(description);
+        order.setPrice(100.0);
+        order.setVersion(0L);
+        return order;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.component;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class LogExtractCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void publish_whenQuotaIsExceeded_evictsLeastRecentlyUsed() throws IOException {
+        LogExtractCache cache = newCache();
+
+        publish(cache, "2025-04-05");
+        publish(cache, "2025-04-06");
+        assertTrue(cache.touch("2025-04-05"));
+        publish(cache, "2025-04-07");
+
+        assertTrue(cache.touch("2025-04-05"));
+        assertFalse(cache.touch("2025-04-06"));
+        assertFalse(Files.exists(cache.path("2025-04-06")));
+        assertTrue(cache.touch("2025-04-07"));
+        assertEquals(200, cache.usedBytes());
+    }
+
+    @Test
+    void load_whenArtifactsExist_restoresThemAndDropsTempFiles() throws IOException {
+        LogExtractCache cache = newCache();
+        publish(cache, "2025-04-05");
+        Path temp = cache.newTempFile("2025-04-06");
+
+        LogExtractCache restored = newCache();
+
+        assertTrue(restored.touch("2025-04-05"));
+        assertEquals(100, restored.usedBytes());
+        assertFalse(Files.exists(temp));
+    }
+
+    private LogExtractCache newCache() throws IOException {
+        LogExtractCache cache = new LogExtractCache(directory, DataSize.ofBytes(250));
+        cache.load();
+        return cache;
+    }
+
+    private static void publish(LogExtractCache cache, String key) throws IOException {
+        Path temp = cache.newTempFile(key);
+        Files.write(temp, new byte[100]);
+        cache.publish(key, temp);
+    }
+}
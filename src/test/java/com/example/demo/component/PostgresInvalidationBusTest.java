@@ -0,0 +1,36 @@
+package com.example.demo.component;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PostgresInvalidationBusTest {
+    @Test
+    void encode_whenDecoded_returnsSameInvalidations() {
+        List<Invalidation> batch = List.of(
+                new Invalidation("node-a", CacheRegion.USERS, 1L),
+                new Invalidation("node-a", CacheRegion.ORDERS, 42L));
+
+        List<String> payloads = PostgresInvalidationBus.encode(batch);
+
+        assertEquals(1, payloads.size());
+        assertEquals(batch, PostgresInvalidationBus.decode(payloads.getFirst()));
+    }
+
+    @Test
+    void encode_whenBatchIsLarge_splitsPayloads() {
+        List<Invalidation> batch = new ArrayList<>();
+        for (long i = 0; i < 5000; i++) {
+            batch.add(new Invalidation("node-a", CacheRegion.ORDERS, 1_000_000_000L + i));
+        }
+
+        List<String> payloads = PostgresInvalidationBus.encode(batch);
+
+        assertTrue(payloads.size() > 1);
+        assertTrue(payloads.stream().allMatch(payload -> payload.length() <= 7000));
+        assertEquals(batch, payloads.stream()
+                .flatMap(payload -> PostgresInvalidationBus.decode(payload).stream())
+                .toList());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.component;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import com.example.demo.config.RoutingProperties;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+    private final DataSource replicaOne = mock(DataSource.class);
+    private final DataSource replicaTwo = mock(DataSource.class);
+    private final Map<DataSource, Long> lags = new ConcurrentHashMap<>();
+    private ReadYourWrites readYourWrites;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        readYourWrites = new ReadYourWrites(new RoutingProperties(List.of(),
+                Duration.ofSeconds(5), Duration.ofSeconds(1), Duration.ofSeconds(10), 100));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replicaOne);
+        replicas.put("replica-2", replicaTwo);
+        lags.put(replicaOne, 0L);
+        lags.put(replicaTwo, 0L);
+        routing = new ReplicaRoutingDataSource(mock(DataSource.class), replicas, readYourWrites,
+                Duration.ofSeconds(5), Duration.ofHours(1)) {
+            @Override
+            long measureLag(DataSource dataSource) {
+                return lags.get(dataSource);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+        readYourWrites.unbind();
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void determineCurrentLookupKey_whenReadOnly_spreadsAcrossReplicas() {
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Set<Object> keys = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(routing.determineCurrentLookupKey());
+        }
+
+        assertEquals(Set.of("replica-1", "replica-2"), keys);
+    }
+
+    @Test
+    void determineCurrentLookupKey_whenNotReadOnly_returnsPrimary() {
+        routing.checkReplicas();
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void determineCurrentLookupKey_whenReplicaLags_skipsIt() {
+        lags.put(replicaOne, 60_000L);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+
+        lags.put(replicaTwo, 60_000L);
+        routing.checkReplicas();
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void determineCurrentLookupKey_whenClientWroteRecently_returnsPrimary() {
+        routing.checkReplicas();
+        readYourWrites.bind("client-a");
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clear();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        readYourWrites.bind("client-b");
+        assertNotEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.component;
+
+import static org.mockito.Mockito.*;
+import com.example.demo.model.Order;
+import com.example.demo.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SecondLevelCacheInvalidatorTest {
+    private final Cache cache = mock(Cache.class);
+    private final InvalidationBus invalidationBus = mock(InvalidationBus.class);
+    private SecondLevelCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        CustomCache customCache = mock(CustomCache.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        when(customCache.getNodeId()).thenReturn("node-a");
+
+        invalidator = new SecondLevelCacheInvalidator(entityManagerFactory, invalidationBus,
+                customCache);
+    }
+
+    @Test
+    void onInvalidation_whenRemote_evictsEntitiesAndQueries() {
+        invalidator.onInvalidation(List.of(
+                new Invalidation("node-b", CacheRegion.USERS, 1L),
+                new Invalidation("node-b", CacheRegion.ORDERS, 2L)));
+
+        verify(invalidationBus).subscribe(invalidator);
+        verify(cache).evictEntityData(User.class, 1L);
+        verify(cache).evictCollectionData(User.class.getName() + ".orders", 1L);
+        verify(cache).evictEntityData(Order.class, 2L);
+        verify(cache).evictQueryRegions();
+    }
+
+    @Test
+    void onInvalidation_whenLocal_leavesCacheAlone() {
+        invalidator.onInvalidation(List.of(new Invalidation("node-a", CacheRegion.USERS, 1L)));
+
+        verifyNoInteractions(cache);
+    }
+}
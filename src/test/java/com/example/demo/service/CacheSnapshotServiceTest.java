@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import com.example.demo.component.CustomCache;
+import com.example.demo.component.LoopbackInvalidationBus;
+import com.example.demo.component.ReadYourWrites;
+import com.example.demo.config.CacheProperties;
+import com.example.demo.config.RoutingProperties;
+import com.example.demo.dto.UserOrderRow;
+import com.example.demo.dto.UserResponseDto;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.UserRepository;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class CacheSnapshotServiceTest {
+    @TempDir
+    private Path directory;
+
+    private LoopbackInvalidationBus bus;
+    private CacheProperties properties;
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(new RoutingProperties(
+            List.of(), Duration.ofSeconds(5), Duration.ofSeconds(1), Duration.ofSeconds(10), 100));
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        bus = new LoopbackInvalidationBus(Duration.ofHours(1));
+        CacheProperties.Spec spec = new CacheProperties.Spec(
+                100, DataSize.ofMegabytes(1), Duration.ofMinutes(10), Duration.ofMinutes(5));
+        properties = new CacheProperties(spec, spec, spec,
+                new CacheProperties.MissingSpec(100, Duration.ofSeconds(30)), 100, true, null,
+                new CacheProperties.SnapshotSpec(true, directory.resolve("snapshot.bin"), 10, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.close();
+    }
+
+    @Test
+    void restore_whenSnapshotWasSaved_reloadsHotUsersFromDatabase() {
+        CustomCache before = new CustomCache(properties, bus, readYourWrites);
+        for (long id = 1; id <= 3; id++) {
+            before.getUser(id, CacheSnapshotServiceTest::user);
+        }
+        new CacheSnapshotService(properties, before, userRepository, orderRepository).save();
+
+        CustomCache after = new CustomCache(properties, bus, readYourWrites);
+        when(userRepository.findUserRowsByIdIn(anyCollection())).thenAnswer(invocation -> invocation
+                .<List<Long>>getArgument(0).stream()
+                .map(id -> new UserOrderRow(id, "John", "John" + id + "@mail.ru", 0L,
+                        null, null, null, null))
+                .toList());
+        new CacheSnapshotService(properties, after, userRepository, orderRepository).restore();
+
+        for (long id = 1; id <= 3; id++) {
+            assertTrue(after.containsUser(id));
+        }
+        verify(userRepository, times(2)).findUserRowsByIdIn(anyCollection());
+    }
+
+    @Test
+    void restore_whenUserWasInvalidatedDuringLoad_skipsStaleUser() {
+        CustomCache before = new CustomCache(properties, bus, readYourWrites);
+        before.getUser(1L, CacheSnapshotServiceTest::user);
+        new CacheSnapshotService(properties, before, userRepository, orderRepository).save();
+
+        CustomCache after = new CustomCache(properties, bus, readYourWrites);
+        when(userRepository.findUserRowsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            after.invalidateUser(1L);
+            return List.of(new UserOrderRow(1L, "John", "John@mail.ru", 0L,
+                    null, null, null, null));
+        });
+        new CacheSnapshotService(properties, after, userRepository, orderRepository).restore();
+
+        assertFalse(after.containsUser(1L));
+    }
+
+    @Test
+    void restore_whenSnapshotIsCorrupt_skipsRestore() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(properties.snapshot().path()))) {
+            out.writeInt(1);
+            out.writeInt(-5);
+        }
+        CustomCache cache = new CustomCache(properties, bus, readYourWrites);
+
+        assertDoesNotThrow(() -> new CacheSnapshotService(properties, cache, userRepository,
+                orderRepository).restore());
+        verifyNoInteractions(userRepository, orderRepository);
+    }
+
+    private static UserResponseDto user(Long id) {
+        UserResponseDto user = new UserResponseDto();
+        user.setId(id);
+        user.setName("John");
+        user.setOrders(new ArrayList<>());
+        return user;
+    }
+}
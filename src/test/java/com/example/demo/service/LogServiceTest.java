@@ -0,0 +1,206 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import com.example.demo.component.LogExtractCache;
+import com.example.demo.dto.LogJob;
+import com.example.demo.dto.LogJobStatus;
+import com.example.demo.exception.NotFoundException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.util.LogArchive;
+import com.example.demo.util.LogIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class LogServiceTest {
+    @TempDir
+    Path directory;
+
+    private LogService logService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (logService != null) {
+            logService.close();
+        }
+    }
+
+    @Test
+    void getNewLogId_whenJobFinishes_keepsStatusAfterRestart() throws Exception {
+        Path log = directory.resolve("app.log");
+        Files.writeString(log, "2025-04-07T10:00:00.000+03:00  INFO first\n");
+        logService = newService(archiveOf(log), 1, 1);
+
+        Long logId = logService.getNewLogId("2025-04-07");
+        awaitStatus(logId, "ready to download");
+        logService.close();
+
+        logService = newService(archiveOf(log), 1, 1);
+
+        assertEquals("Log file with id 1 is ready to download", logService.getLogStatus(1L));
+        assertEquals(1L, logService.getNewLogId("2025-04-07"));
+        assertEquals(2L, logService.getNewLogId("2025-04-08"));
+        awaitStatus(2L, "ready to download");
+        assertEquals("2025-04-07T10:00:00.000+03:00  INFO first\n",
+                Files.readString(Path.of(logService.getLog(1L))));
+    }
+
+    @Test
+    void getNewLogId_whenQueueIsFull_rejectsJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        logService = newService(blockingArchive(release), 1, 1);
+
+        logService.getNewLogId("2025-04-07");
+        logService.getNewLogId("2025-04-08");
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> logService.getNewLogId("2025-04-09"));
+        assertEquals("Log file with id 3 was rejected", logService.getLogStatus(3L));
+        release.countDown();
+    }
+
+    @Test
+    void cancelLog_whenJobIsRunning_stopsIt() throws Exception {
+        logService = newService(blockingArchive(new CountDownLatch(1)), 1, 1);
+        Long logId = logService.getNewLogId("2025-04-07");
+        awaitStatus(logId, "not ready");
+
+        logService.cancelLog(logId);
+
+        assertEquals("Log file with id 1 was cancelled", logService.getLogStatus(logId));
+        Path extracts = directory.resolve("extracts");
+        for (int i = 0; i < 500 && hasFiles(extracts); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(hasFiles(extracts));
+    }
+
+    @Test
+    void cancelLog_whenJobIsStillRunning_keepsItUntilItCleanedUp() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LogArchive logArchive = mock(LogArchive.class);
+        when(logArchive.extract(eq("2025-04-07"), anyString(), any(), any()))
+                .thenAnswer(invocation -> {
+                    invocation.<WritableByteChannel>getArgument(2)
+                            .write(ByteBuffer.wrap(new byte[] {'x'}));
+                    started.countDown();
+                    boolean interrupted = false;
+                    while (release.getCount() > 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (interrupted || Thread.interrupted()) {
+                        throw new InterruptedIOException("Extraction was interrupted");
+                    }
+                    return 1L;
+                });
+        logService = newService(logArchive, 1, 1);
+        Long logId = logService.getNewLogId("2025-04-07");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        logService.cancelLog(logId);
+        Long nextId = logService.getNewLogId("2025-04-08");
+
+        assertEquals("Log file with id 1 was cancelled", logService.getLogStatus(logId));
+        release.countDown();
+        awaitStatus(nextId, "ready to download");
+        try (Stream<Path> files = Files.list(directory.resolve("extracts"))) {
+            assertEquals(List.of("2025-04-08.log"),
+                    files.map(path -> path.getFileName().toString()).toList());
+        }
+        logService.getNewLogId("2025-04-09");
+        assertThrows(NotFoundException.class, () -> logService.getLogStatus(logId));
+    }
+
+    @Test
+    void load_whenHistoryIsFull_prunesFinishedJobs() throws Exception {
+        Path extract = Files.createDirectories(directory.resolve("extracts"))
+                .resolve("2025-04-03.log");
+        Files.writeString(extract, "");
+        new ObjectMapper().writeValue(directory.resolve("jobs.json").toFile(), List.of(
+                new LogJob(1, "2025-04-01", "2025-04-01", LogJobStatus.FAILED, 0, "missing"),
+                new LogJob(2, "2025-04-02", "2025-04-02", LogJobStatus.DONE, 100, "missing"),
+                new LogJob(3, "2025-04-03", "2025-04-03", LogJobStatus.DONE, 100,
+                        extract.toString()),
+                new LogJob(4, "2025-04-04", "2025-04-04", LogJobStatus.CANCELLED, 0, "missing"),
+                new LogJob(5, "2025-04-05", "2025-04-05", LogJobStatus.REJECTED, 0, "missing"),
+                new LogJob(6, "2025-04-06", "2025-04-06", LogJobStatus.FAILED, 0, "missing")));
+
+        logService = newService(archiveOf(directory.resolve("app.log")), 1, 1, 2);
+
+        assertEquals("Log file with id 3 is ready to download", logService.getLogStatus(3L));
+        assertEquals("Log file with id 6 failed", logService.getLogStatus(6L));
+        for (long logId : new long[] {1, 2, 4, 5}) {
+            assertThrows(NotFoundException.class, () -> logService.getLogStatus(logId));
+        }
+        assertEquals(List.of(3L, 6L), Arrays.stream(new ObjectMapper().readValue(
+                directory.resolve("jobs.json").toFile(), LogJob[].class)).map(LogJob::id).toList());
+    }
+
+    private LogService newService(LogArchive logArchive, int workers, int queueCapacity)
+            throws IOException {
+        return newService(logArchive, workers, queueCapacity, 1000);
+    }
+
+    private LogService newService(LogArchive logArchive, int workers, int queueCapacity,
+                                  int historySize) throws IOException {
+        LogExtractCache extractCache = new LogExtractCache(directory.resolve("extracts"),
+                DataSize.ofMegabytes(1));
+        extractCache.load();
+        LogService service = new LogService(new LogIndex(directory.resolve("app.log"), 16),
+                logArchive, extractCache, new ObjectMapper(), directory, workers, queueCapacity,
+                historySize);
+        service.load();
+        return service;
+    }
+
+    private static boolean hasFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findAny().isPresent();
+        }
+    }
+
+    private static LogArchive archiveOf(Path log) {
+        return new LogArchive(new LogIndex(log, 16), 1);
+    }
+
+    private static LogArchive blockingArchive(CountDownLatch release) throws IOException {
+        LogArchive logArchive = mock(LogArchive.class);
+        when(logArchive.extract(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            invocation.<LogIndex.Progress>getArgument(3).onProgress(0, 100);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Extraction was interrupted");
+            }
+            return 0L;
+        });
+        return logArchive;
+    }
+
+    private void awaitStatus(Long logId, String status) throws InterruptedException {
+        for (int i = 0; i < 500 && !logService.getLogStatus(logId).contains(status); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(logService.getLogStatus(logId).contains(status));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.example.demo.util.LogArchive;
+import com.example.demo.util.LogIndex;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogStreamServiceTest {
+    private static final String DAY_BEFORE = "2025-04-06T10:00:00.000+03:00  INFO before\n";
+    private static final String DAY = "2025-04-07T10:00:00.000+03:00  INFO first\n"
+            + "2025-04-07T11:00:00.000+03:00  INFO second\n";
+    private static final String DAY_AFTER = "2025-04-08T10:00:00.000+03:00  INFO after\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void open_whenRangeIsRequested_transfersOnlyThoseBytes() throws IOException {
+        LogStreamService service = newService();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (LogStreamService.LogSlice slice = service.open("2025-04-07")) {
+            assertEquals(DAY.length(), slice.length());
+            slice.transferTo(5, 10, out, false);
+        }
+
+        assertEquals(DAY.substring(5, 15), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void open_whenGzipIsRequested_compressesTheSlice() throws IOException {
+        LogStreamService service = newService();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (LogStreamService.LogSlice slice = service.open("2025-04-07")) {
+            slice.transferTo(0, slice.length(), out, true);
+        }
+
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(DAY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void open_whenLogIsMissing_returnsEmptySlice() throws IOException {
+        LogStreamService service = newService(directory.resolve("missing.log"));
+
+        try (LogStreamService.LogSlice slice = service.open("2025-04-07")) {
+            assertEquals(0, slice.length());
+        }
+    }
+
+    @Test
+    void reopen_whenLogIsUnchanged_transfersTheLocatedBytes() throws IOException {
+        LogStreamService service = newService();
+        LogStreamService.LogSlice located = service.locate("2025-04-07");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertNull(located.channel());
+        Files.writeString(directory.resolve("app.log"), DAY_AFTER, StandardOpenOption.APPEND);
+        try (LogStreamService.LogSlice slice = service.reopen("2025-04-07", located)) {
+            slice.transferTo(0, located.length(), out, false);
+        }
+
+        assertEquals(DAY, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reopen_whenLogWasRotatedAfterLocate_fails() throws IOException {
+        LogStreamService service = newService();
+        LogStreamService.LogSlice located = service.locate("2025-04-07");
+
+        Files.move(directory.resolve("app.log"), directory.resolve("app.log.2025-04-07.0"));
+        Files.writeString(directory.resolve("app.log"), DAY_AFTER);
+
+        assertThrows(IOException.class, () -> service.reopen("2025-04-07", located));
+    }
+
+    @Test
+    void transferRotated_whenDateWasRotated_sendsSegmentsThenCurrentFile() throws IOException {
+        String rotated = "2025-04-07T01:00:00.000+03:00  INFO rotated\n";
+        try (OutputStream out = new GZIPOutputStream(
+                Files.newOutputStream(directory.resolve("app.log.2025-04-07.0.gz")))) {
+            out.write((DAY_BEFORE + rotated).getBytes(StandardCharsets.UTF_8));
+        }
+        LogStreamService service = newService();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (LogStreamService.LogSlice slice = service.open("2025-04-07")) {
+            assertTrue(slice.rotated());
+        }
+        service.transferRotated("2025-04-07", out, false);
+
+        assertEquals(rotated + DAY, out.toString(StandardCharsets.UTF_8));
+        try (LogStreamService.LogSlice slice = service.open("2025-04-08")) {
+            assertFalse(slice.rotated());
+            assertEquals(DAY_AFTER.length(), slice.length());
+        }
+    }
+
+    private LogStreamService newService() throws IOException {
+        Path file = directory.resolve("app.log");
+        Files.writeString(file, DAY_BEFORE + DAY + DAY_AFTER);
+        return newService(file);
+    }
+
+    private LogStreamService newService(Path file) {
+        LogIndex logIndex = new LogIndex(file, 16);
+        return new LogStreamService(logIndex, new LogArchive(logIndex, 1));
+    }
+}
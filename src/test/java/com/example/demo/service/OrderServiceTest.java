@@ -3,8 +3,14 @@ package com.example.demo.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import com.example.demo.component.CustomCache;
+import com.example.demo.component.LoopbackInvalidationBus;
+import com.example.demo.component.ReadYourWrites;
+import com.example.demo.component.ReplicaRoutingDataSource;
+import com.example.demo.config.CacheProperties;
+import com.example.demo.config.RoutingProperties;
 import com.example.demo.dto.OrderRequestDto;
 import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.OrderSliceDto;
 import com.example.demo.exception.InvalidArgumentsException;
 import com.example.demo.exception.NotFoundException;
 import com.example.demo.model.Order;
@@ -15,12 +21,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @ExtendWith(MockitoExtension.class)
 class OrderServiceTest {
@@ -33,6 +56,10 @@ class OrderServiceTest {
     @Mock
     private CustomCache cache;
 
+    @Spy
+    private TransactionTemplate readOnlyTransaction =
+            new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private OrderService orderService;
 
@@ -46,7 +73,7 @@ class OrderServiceTest {
 
     @Test
     void createdOrder_whenUserDoesNotExist_throwsException() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.lockById(1L)).thenReturn(Optional.empty());
 
         OrderRequestDto orderRequestDto = new OrderRequestDto();
 
@@ -57,21 +84,53 @@ class OrderServiceTest {
     @Test
     void createOrder_whenUserExists_returnsOrder() {
         OrderRequestDto orderRequestDto = new OrderRequestDto("TV", 500.0);
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 3L);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(user));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setId(1L);
             return order;
         });
-        when(cache.removeUser(1L)).thenReturn(null);
 
         OrderResponseDto result = orderService.createOrder(1L, orderRequestDto);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertEquals("TV", result.getDescription());
+        verify(cache).writeOrder(eq(1L), eq(3L), any(OrderResponseDto.class));
+    }
+
+    @Test
+    void createOrders_whenUserDoesNotExist_throwsException() {
+        List<OrderRequestDto> orders = List.of(new OrderRequestDto("TV", 300.0));
+
+        when(userRepository.lockById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> orderService.createOrders(1L, orders));
+        verify(orderRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createOrders_whenUserExists_savesAllAndWritesCacheOnce() {
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
+        List<OrderRequestDto> orders = List.of(
+                new OrderRequestDto("TV", 300.0), new OrderRequestDto("Fridge", 500.0));
+
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(user));
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Order> orderList = invocation.getArgument(0);
+            for (int i = 0; i < orderList.size(); i++) {
+                orderList.get(i).setId(i + 1L);
+            }
+            return orderList;
+        });
+
+        List<OrderResponseDto> result = orderService.createOrders(1L, orders);
+
+        assertEquals(List.of(1L, 2L), result.stream().map(OrderResponseDto::getId).toList());
+        verify(userRepository, never()).findById(any());
+        verify(cache).writeOrders(1L, 0L, result);
     }
 
     @Test
@@ -84,7 +143,8 @@ class OrderServiceTest {
 
     @Test
     void updatePartiallyOrder_whenOrderDoesNotExist_throwsException() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cache.getOrderOwner(1L)).thenReturn(null);
+        when(orderRepository.findUserIdById(1L)).thenReturn(Optional.empty());
 
         OrderRequestDto orderRequestDto = new OrderRequestDto();
 
@@ -95,9 +155,11 @@ class OrderServiceTest {
     @Test
     void updatePartiallyOrder_whenDescriptionAndPriceIsInvalid_throwsException() {
         OrderRequestDto orderRequestDto = new OrderRequestDto("  ", null);
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-        Order existingOrder = new Order(1L, "Fridge", 300.0, user);
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
+        Order existingOrder = new Order(1L, "Fridge", 300.0, user, 0L);
 
+        when(cache.getOrderOwner(1L)).thenReturn(1L);
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(user));
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
 
         assertThrows(InvalidArgumentsException.class,
@@ -107,9 +169,11 @@ class OrderServiceTest {
     @Test
     void updatePartiallyOrder_whenDescriptionIsBlank_returnsOrder() {
         OrderRequestDto orderRequestDto = new OrderRequestDto("  ", 300.0);
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-        Order existingOrder = new Order(1L, "Fridge", 300.0, user);
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
+        Order existingOrder = new Order(1L, "Fridge", 300.0, user, 0L);
 
+        when(cache.getOrderOwner(1L)).thenReturn(1L);
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(user));
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
 
         assertThrows(InvalidArgumentsException.class,
@@ -119,9 +183,11 @@ class OrderServiceTest {
     @Test
     void updatePartiallyOrder_whenPriceIsInvalid_throwsException() {
         OrderRequestDto orderRequestDto = new OrderRequestDto("TV", -300.0);
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-        Order existingOrder = new Order(1L, "Fridge", 300.0, user);
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
+        Order existingOrder = new Order(1L, "Fridge", 300.0, user, 0L);
 
+        when(cache.getOrderOwner(1L)).thenReturn(1L);
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(user));
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
 
         assertThrows(InvalidArgumentsException.class,
@@ -144,19 +210,33 @@ class OrderServiceTest {
 
     @Test
     void deleteOrder_whenOrderExists_return() {
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-        Order order = new Order(1L, "TV", 300.0, user);
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
+        Order order = new Order(1L, "TV", 300.0, user, 0L);
 
         when(orderRepository.existsById(1L)).thenReturn(true);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(cache.getOrderOwner(1L)).thenReturn(null);
+        when(orderRepository.findUserIdById(1L)).thenReturn(Optional.of(order.getUser().getId()));
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(user));
         doNothing().when(orderRepository).deleteById(1L);
-        when(cache.removeOrder(1L)).thenReturn(null);
-        when(cache.removeUser(anyLong())).thenReturn(null);
 
         orderService.deleteOrder(1L);
 
         verify(orderRepository).deleteById(1L);
-        verify(cache).removeOrder(1L);
+        verify(cache).deleteOrder(1L, 0L, 1L);
+    }
+
+    @Test
+    void deleteOrder_whenOwnerIsIndexed_skipsOrderLookup() {
+        when(orderRepository.existsById(1L)).thenReturn(true);
+        when(cache.getOrderOwner(1L)).thenReturn(2L);
+        when(userRepository.lockById(2L)).thenReturn(Optional.of(
+                new User(2L, "Alex", "alex@mail.ru", new ArrayList<>(), 5L)));
+
+        orderService.deleteOrder(1L);
+
+        verify(orderRepository, never()).findUserIdById(anyLong());
+        verify(orderRepository).deleteById(1L);
+        verify(cache).deleteOrder(2L, 5L, 1L);
     }
 
     @Test
@@ -174,11 +254,12 @@ class OrderServiceTest {
     @Test
     void getOrdersPageable_whenArgumentsIsValid_returnsOrdersPageable() {
         Pageable pageable = PageRequest.of(1, 5);
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-        List<Order> orders = List.of(new Order(1L, "TV", 300.0, user));
-        Page<Order> ordersPage = new PageImpl<>(orders, pageable, orders.size());
+        List<OrderResponseDto> orders = List.of(new OrderResponseDto(1L, "TV", 300.0, 0L));
+        Page<OrderResponseDto> ordersPage = new PageImpl<>(orders, pageable, orders.size());
 
-        when(orderRepository.findOrdersPageable(any(Pageable.class))).thenReturn(ordersPage);
+        when(cache.getOrdersPage(isNull(), eq(1), eq(5), any())).thenAnswer(invocation -> invocation
+                .<Supplier<Page<OrderResponseDto>>>getArgument(3).get());
+        when(orderRepository.findOrderDtos(any(Pageable.class))).thenReturn(ordersPage);
 
         Page<OrderResponseDto> result = orderService.getOrdersPageable(1, 5);
 
@@ -196,8 +277,9 @@ class OrderServiceTest {
 
     @Test
     void getOrderById_whenOrderDoesNotExist_throwsException() {
-        when(cache.containsOrder(1L)).thenReturn(false);
-        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cache.getOrder(eq(1L), any())).thenAnswer(invocation -> invocation
+                .<Function<Long, OrderResponseDto>>getArgument(1).apply(1L));
+        when(orderRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
                 () -> orderService.getOrderById(1L));
@@ -205,12 +287,11 @@ class OrderServiceTest {
 
     @Test
     void getOrderById_whenOrderExists_returnsOrder() {
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-        Order order = new Order(1L, "TV", 300.0, user);
+        OrderResponseDto order = new OrderResponseDto(1L, "TV", 300.0, 0L);
 
-        when(cache.containsOrder(1L)).thenReturn(false);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(cache.putOrder(eq(1L), any(OrderResponseDto.class))).thenReturn(null);
+        when(cache.getOrder(eq(1L), any())).thenAnswer(invocation -> invocation
+                .<Function<Long, OrderResponseDto>>getArgument(1).apply(1L));
+        when(orderRepository.findDtoById(1L)).thenReturn(Optional.of(order));
 
         OrderResponseDto result = orderService.getOrderById(1L);
 
@@ -219,13 +300,66 @@ class OrderServiceTest {
         assertEquals(order.getDescription(), result.getDescription());
     }
 
+    @Test
+    void getOrderById_whenCacheMisses_readsFromReplica() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = replica();
+        Connection replicaConnection = replica.getConnection();
+        ReplicaRoutingDataSource routing = routing(primary, replica, readYourWrites());
+        OrderService service = new OrderService(orderRepository, userRepository, cache,
+                readOnlyTransaction());
+        AtomicReference<Connection> connection = new AtomicReference<>();
+
+        when(cache.getOrder(eq(1L), any())).thenAnswer(invocation -> invocation
+                .<Function<Long, OrderResponseDto>>getArgument(1).apply(1L));
+        when(orderRepository.findDtoById(1L)).thenAnswer(invocation -> {
+            connection.set(routing.getConnection());
+            return Optional.of(new OrderResponseDto(1L, "TV", 300.0, 0L));
+        });
+
+        service.getOrderById(1L);
+        routing.close();
+
+        assertSame(replicaConnection, connection.get());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getOrderById_whenOrderChangedWithinReplicaLag_reloadsFromPrimary() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        DataSource replica = replica();
+        Connection replicaConnection = replica.getConnection();
+        ReadYourWrites readYourWrites = readYourWrites();
+        ReplicaRoutingDataSource routing = routing(primary, replica, readYourWrites);
+        LoopbackInvalidationBus bus = new LoopbackInvalidationBus(Duration.ofHours(1));
+        CacheProperties.Spec spec = new CacheProperties.Spec(
+                100, DataSize.ofMegabytes(1), Duration.ofMinutes(10), Duration.ofMinutes(5));
+        CustomCache sharedCache = new CustomCache(new CacheProperties(spec, spec, spec,
+                new CacheProperties.MissingSpec(100, Duration.ofSeconds(30)), 100, true,
+                null, null), bus, readYourWrites);
+        OrderService service = new OrderService(orderRepository, userRepository, sharedCache,
+                readOnlyTransaction());
+
+        when(orderRepository.findDtoById(1L)).thenAnswer(invocation ->
+                routing.getConnection() == replicaConnection
+                        ? Optional.of(new OrderResponseDto(1L, "TV", 300.0, 0L))
+                        : Optional.of(new OrderResponseDto(1L, "OLED TV", 350.0, 1L)));
+
+        assertEquals("TV", service.getOrderById(1L).getDescription());
+        sharedCache.invalidateOrder(1L);
+        assertEquals("OLED TV", service.getOrderById(1L).getDescription());
+        assertEquals("OLED TV", sharedCache.getOrder(1L).getDescription());
+        routing.close();
+        bus.close();
+    }
+
     @Test
     void getOrderById_whenOrdersExistsInCache_returnsOrder() {
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-        Order order = new Order(1L, "TV", 300.0, user);
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
+        Order order = new Order(1L, "TV", 300.0, user, 0L);
 
-        when(cache.containsOrder(1L)).thenReturn(true);
-        when(cache.getOrder(1L)).thenReturn(OrderResponseDto.toDto(order));
+        when(cache.getOrder(eq(1L), any())).thenReturn(OrderResponseDto.toDto(order));
 
         OrderResponseDto result = orderService.getOrderById(1L);
 
@@ -233,4 +367,113 @@ class OrderServiceTest {
         assertEquals(order.getId(), result.getId());
         assertEquals(order.getDescription(), result.getDescription());
     }
+
+    @Test
+    void getOrdersByUserId_whenPageIsCached_skipsQueries() {
+        Page<OrderResponseDto> cached = new PageImpl<>(List.of(), PageRequest.of(0, 5), 0);
+
+        when(cache.getOrdersPage(eq(1L), eq(0), eq(5), any())).thenReturn(cached);
+
+        assertSame(cached, orderService.getOrdersByUserId(1L, 0, 5));
+        verifyNoInteractions(userRepository, orderRepository);
+    }
+
+    @Test
+    void getOrdersAfter_whenMoreOrdersExist_returnsCursorToNextSlice() {
+        List<OrderResponseDto> orders = List.of(new OrderResponseDto(4L, "TV", 300.0, 0L),
+                new OrderResponseDto(5L, "Fridge", 500.0, 0L),
+                new OrderResponseDto(6L, "Radio", 50.0, 0L));
+
+        when(orderRepository.findOrderDtosAfter(0L, Limit.of(3))).thenReturn(orders);
+        when(orderRepository.findOrderDtosAfter(5L, Limit.of(3))).thenReturn(orders.subList(2, 3));
+
+        OrderSliceDto first = orderService.getOrdersAfter(null, 2);
+        OrderSliceDto second = orderService.getOrdersAfter(first.getNextCursor(), 2);
+
+        assertEquals(List.of(4L, 5L), first.getOrders().stream().map(OrderResponseDto::getId)
+                .toList());
+        assertEquals(6L, second.getOrders().getFirst().getId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getOrdersAfter_whenCursorIsMalformed_throwsException() {
+        assertThrows(InvalidArgumentsException.class,
+                () -> orderService.getOrdersAfter("not a cursor", 10));
+    }
+
+    @Test
+    void getOrdersAfter_whenSizeExceedsMaximum_throwsException() {
+        assertThrows(InvalidArgumentsException.class,
+                () -> orderService.getOrdersAfter(null, 1000));
+    }
+
+    @Test
+    void getOrdersByUserIdAfter_whenUserDoesNotExist_throwsException() {
+        when(orderRepository.findOrderDtosByUserIdAfter(1L, 0L, Limit.of(11)))
+                .thenReturn(List.of());
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class,
+                () -> orderService.getOrdersByUserIdAfter(1L, null, 10));
+    }
+
+    @Test
+    void getOrdersByUserIdAfter_whenUserIdIsInvalid_throwsException() {
+        InvalidArgumentsException exception = assertThrows(InvalidArgumentsException.class,
+                () -> orderService.getOrdersByUserIdAfter(-1L, null, 10));
+
+        assertEquals("Invalid user id", exception.getMessage());
+    }
+
+    private static DataSource replica() throws SQLException {
+        DataSource replica = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(mock(ResultSet.class));
+        return replica;
+    }
+
+    private static ReadYourWrites readYourWrites() {
+        return new ReadYourWrites(new RoutingProperties(List.of(),
+                Duration.ofSeconds(5), Duration.ofHours(1), Duration.ofSeconds(10), 100));
+    }
+
+    private static ReplicaRoutingDataSource routing(
+            DataSource primary, DataSource replica, ReadYourWrites readYourWrites
+    ) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary,
+                Map.of("replica-1", replica), readYourWrites, Duration.ofSeconds(5),
+                Duration.ofHours(1));
+        routing.afterPropertiesSet();
+        routing.checkReplicas();
+        return routing;
+    }
+
+    private static TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(new NoOpTransactionManager());
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
 }
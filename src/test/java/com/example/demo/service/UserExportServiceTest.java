@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import com.example.demo.dto.UserOrderRow;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class UserExportServiceTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserExportService exportService =
+            new UserExportService(userRepository, new ObjectMapper());
+
+    @Test
+    void exportUsers_whenRowsAreGroupedByUser_writesOneLinePerUser() throws Exception {
+        when(userRepository.streamUsersWithOrders()).thenReturn(Stream.of(
+                new UserOrderRow(1L, "John", "john@mail.ru", 0L, 10L, "TV", 300.0, 0L),
+                new UserOrderRow(1L, "John", "john@mail.ru", 0L, 11L, "Fridge", 500.0, 0L),
+                new UserOrderRow(2L, "Alex", "alex@mail.ru", 0L, null, null, null, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportUsers(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":1,\"name\":\"John\",\"email\":\"john@mail.ru\",\"orders\":["
+                + "{\"id\":10,\"description\":\"TV\",\"price\":300.0},"
+                + "{\"id\":11,\"description\":\"Fridge\",\"price\":500.0}]}", lines[0]);
+        assertEquals("{\"id\":2,\"name\":\"Alex\",\"email\":\"alex@mail.ru\",\"orders\":[]}",
+                lines[1]);
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("}\n"));
+    }
+
+    @Test
+    void exportUsers_whenThereAreNoUsers_writesNothing() throws Exception {
+        when(userRepository.streamUsersWithOrders()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportUsers(out);
+
+        assertEquals(0, out.size());
+    }
+}
@@ -3,6 +3,9 @@ package com.example.demo.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import com.example.demo.component.CustomCache;
+import com.example.demo.component.EmailFilter;
+import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.UserOrderRow;
 import com.example.demo.dto.UserRequestDto;
 import com.example.demo.dto.UserResponseDto;
 import com.example.demo.exception.ConflictException;
@@ -10,16 +13,24 @@ import com.example.demo.exception.InvalidArgumentsException;
 import com.example.demo.exception.NotFoundException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -29,29 +40,37 @@ class UserServiceTest {
     @Mock
     private CustomCache cache;
 
+    @Mock
+    private EmailFilter emailFilter;
+
+    @Spy
+    private TransactionTemplate readOnlyTransaction =
+            new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private UserService userService;
 
     @Test
     void getUserById_whenUserExists_returnsUser() {
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
-
-        when(cache.containsUser(1L)).thenReturn(false);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(cache.putUser(eq(1L), any(UserResponseDto.class))).thenReturn(null);
+        when(cache.getUser(eq(1L), any())).thenAnswer(invocation -> invocation
+                .<Function<Long, UserResponseDto>>getArgument(1).apply(1L));
+        when(userRepository.findUserRowsById(1L)).thenReturn(List.of(
+                new UserOrderRow(1L, "John", "JohnDoe@mail.ru", 0L, 10L, "TV", 300.0, 0L),
+                new UserOrderRow(1L, "John", "JohnDoe@mail.ru", 0L, 11L, "Fridge", 500.0, 0L)));
 
         UserResponseDto foundUser = userService.getUserById(1L);
 
-        assertEquals(user.getId(), foundUser.getId());
-        assertEquals(user.getEmail(), foundUser.getEmail());
+        assertEquals(1L, foundUser.getId());
+        assertEquals("JohnDoe@mail.ru", foundUser.getEmail());
+        assertEquals(List.of(10L, 11L),
+                foundUser.getOrders().stream().map(OrderResponseDto::getId).toList());
     }
 
     @Test
     void getUserById_whenUserExistsInCache_returnsUser() {
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
 
-        when(cache.containsUser(1L)).thenReturn(true);
-        when(cache.getUser(1L)).thenReturn(UserResponseDto.toDto(user));
+        when(cache.getUser(eq(1L), any())).thenReturn(UserResponseDto.toDto(user));
 
         UserResponseDto foundUser = userService.getUserById(1L);
 
@@ -61,10 +80,19 @@ class UserServiceTest {
 
     @Test
     void getUserById_whenUserDoesNotExist_throwException() {
-        when(cache.containsUser(1L)).thenReturn(false);
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cache.getUser(eq(1L), any())).thenAnswer(invocation -> invocation
+                .<Function<Long, UserResponseDto>>getArgument(1).apply(1L));
+        when(userRepository.findUserRowsById(1L)).thenReturn(List.of());
+
+        assertThrows(NotFoundException.class, () -> userService.getUserById(1L));
+    }
+
+    @Test
+    void getUserById_whenMissIsCached_throwExceptionWithoutQuery() {
+        when(cache.getUser(eq(1L), any())).thenReturn(null);
 
         assertThrows(NotFoundException.class, () -> userService.getUserById(1L));
+        verify(userRepository, never()).findUserRowsById(anyLong());
     }
 
     @Test
@@ -78,6 +106,7 @@ class UserServiceTest {
         user.setName("John");
         user.setEmail("JohnDoe@mail.ru");
 
+        when(emailFilter.mightContain(user.getEmail())).thenReturn(true);
         when(userRepository.existsByEmail(user.getEmail())).thenReturn(true);
 
         assertThrows(ConflictException.class, () -> userService.createUser(user));
@@ -87,9 +116,7 @@ class UserServiceTest {
     void createUser_whenUserSaved_returnsUser() {
         UserRequestDto user = new UserRequestDto("John", "JohnDoe@mail.ru");
 
-        when(userRepository.existsByEmail(user.getEmail())).thenReturn(false);
-
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
             User u = invocation.getArgument(0);
             u.setId(1L);
             return u;
@@ -99,15 +126,54 @@ class UserServiceTest {
 
         assertEquals(1L, result.getId());
         assertEquals("JohnDoe@mail.ru", result.getEmail());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(emailFilter).put("JohnDoe@mail.ru");
+    }
+
+    @Test
+    void createUser_whenEmailIsTakenConcurrently_throwException() {
+        UserRequestDto user = new UserRequestDto("John", "JohnDoe@mail.ru");
+
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(violation("users_email_key"));
+
+        assertThrows(ConflictException.class, () -> userService.createUser(user));
+        verify(emailFilter, never()).put(any());
+    }
+
+    @Test
+    void createUsers_whenEmailIsTakenConcurrently_reportsOnlyConflictingEmails() {
+        List<UserRequestDto> users = List.of(new UserRequestDto("John", "JohnDoe@mail.ru"),
+                new UserRequestDto("Jane", "JaneDoe@mail.ru"));
+
+        doThrow(violation("users_email_key")).when(userRepository).flush();
+        when(userRepository.findEmailsByEmailIn(List.of("JohnDoe@mail.ru", "JaneDoe@mail.ru")))
+                .thenReturn(List.of("JaneDoe@mail.ru"));
+
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> userService.createUsers(users));
+
+        assertEquals("Next emails already exist: [JaneDoe@mail.ru]", exception.getMessage());
+        verify(emailFilter, never()).put(any());
+    }
+
+    @Test
+    void createUsers_whenOtherConstraintIsViolated_rethrows() {
+        List<UserRequestDto> users = List.of(new UserRequestDto("John", "JohnDoe@mail.ru"));
+
+        doThrow(violation("users_pkey")).when(userRepository).flush();
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUsers(users));
+        verify(userRepository, never()).findEmailsByEmailIn(any());
     }
 
     @Test
     void createUsers_whenEmailsIsAlreadyExists_throwException() {
         List<UserRequestDto> usersRequests = List.of(new UserRequestDto("John", "JohnDoe@mail.ru"));
 
-        List<User> users = List.of(new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>()));
-
-        when(userRepository.findAllByEmailIn(anyList())).thenReturn(users);
+        when(emailFilter.mightContain("JohnDoe@mail.ru")).thenReturn(true);
+        when(userRepository.findEmailsByEmailIn(List.of("JohnDoe@mail.ru")))
+                .thenReturn(List.of("JohnDoe@mail.ru"));
 
         assertThrows(ConflictException.class, () -> userService.createUsers(usersRequests));
     }
@@ -116,8 +182,6 @@ class UserServiceTest {
     void createUsers_whenUsersSaved_returnsUsers() {
         List<UserRequestDto> users = List.of(new UserRequestDto("John", "JohnDoe@mail.ru"));
 
-        when(userRepository.findAllByEmailIn(anyList())).thenReturn(new ArrayList<>());
-
         when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
             List<User> userList = invocation.getArgument(0);
             userList.forEach(user -> user.setId(1L));
@@ -129,26 +193,28 @@ class UserServiceTest {
         assertEquals(users.size(), result.size());
         assertEquals(1L, result.getFirst().getId());
         assertEquals("JohnDoe@mail.ru", result.getFirst().getEmail());
+        verify(userRepository, never()).findEmailsByEmailIn(any());
+        verify(userRepository).flush();
+        verify(cache).invalidateUsers(List.of(1L));
+        verify(cache, never()).invalidateUser(any());
     }
 
     @Test
     void deleteUser_whenUserExists_return() {
-        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
+        User user = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
 
-        when(userRepository.existsById(1L)).thenReturn(true);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        doNothing().when(userRepository).deleteById(1L);
-        when(cache.removeUser(1L)).thenReturn(null);
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(user));
 
         userService.deleteUser(1L);
 
-        verify(userRepository).deleteById(1L);
-        verify(cache).removeUser(1L);
+        verify(userRepository).delete(user);
+        verify(cache).invalidateUser(1L);
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
     void deleteUser_whenUserDoesNotExist_throwException() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.lockById(1L)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> userService.deleteUser(1L));
     }
@@ -170,6 +236,7 @@ class UserServiceTest {
     void updatePartiallyUser_whenEmailIsAlreadyExists_throwException() {
         UserRequestDto newUser = new UserRequestDto("Alex", "AlexAlex@mail.ru");
 
+        when(emailFilter.mightContain(newUser.getEmail())).thenReturn(true);
         when(userRepository.existsByEmail(newUser.getEmail())).thenReturn(true);
 
         assertThrows(ConflictException.class, () -> userService.updatePartiallyUser(1L, newUser));
@@ -179,12 +246,25 @@ class UserServiceTest {
     void updatePartiallyUser_whenUserDoesNotExist_throwException() {
         UserRequestDto newUser = new UserRequestDto("Alex", "AlexAlex@mail.ru");
 
-        when(userRepository.existsByEmail(newUser.getEmail())).thenReturn(false);
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.lockById(1L)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> userService.updatePartiallyUser(1L, newUser));
     }
 
+    @Test
+    void updatePartiallyUser_whenUserExists_locksItBeforeUpdating() {
+        UserRequestDto newUser = new UserRequestDto("Alex", null);
+        User existingUser = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
+
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(existingUser));
+
+        UserResponseDto result = userService.updatePartiallyUser(1L, newUser);
+
+        assertEquals("Alex", result.getName());
+        verify(userRepository).saveAndFlush(existingUser);
+        verify(userRepository, never()).findById(any());
+    }
+
     @ParameterizedTest
     @CsvSource({
             "'  ', '  '",
@@ -193,11 +273,42 @@ class UserServiceTest {
     })
     void updatePartiallyUser_withInvalidNameOrEmail_throwException(String name, String email) {
         UserRequestDto newUser = new UserRequestDto(name, email);
-        User existingUser = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>());
+        User existingUser = new User(1L, "John", "JohnDoe@mail.ru", new ArrayList<>(), 0L);
 
-        when(userRepository.existsByEmail(newUser.getEmail())).thenReturn(false);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+        when(userRepository.lockById(1L)).thenReturn(Optional.of(existingUser));
         assertThrows(InvalidArgumentsException.class,
                 () -> userService.updatePartiallyUser(1L, newUser));
     }
+
+    @Test
+    void getUsersPageable_whenPageHasUsers_loadsOnlyThoseUsers() {
+        when(userRepository.findUserIds(any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(userRepository.findUserRowsByIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                new UserOrderRow(1L, "John", "JohnDoe@mail.ru", 0L, 10L, "TV", 300.0, 0L),
+                new UserOrderRow(2L, "Alex", "alex@mail.ru", 0L, null, null, null, null)));
+
+        List<UserResponseDto> result = userService.getUsersPageable(0, 2);
+
+        assertEquals(List.of(1L, 2L), result.stream().map(UserResponseDto::getId).toList());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void getUsersPageable_whenPageIsEmpty_skipsSecondQuery() {
+        when(userRepository.findUserIds(any(Pageable.class))).thenReturn(List.of());
+
+        assertTrue(userService.getUsersPageable(5, 10).isEmpty());
+        verify(userRepository, never()).findUserRowsByIdIn(anyCollection());
+    }
+
+    @Test
+    void getUsersPageable_whenSizeExceedsMaximum_throwsException() {
+        assertThrows(InvalidArgumentsException.class,
+                () -> userService.getUsersPageable(0, 1000));
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException(), constraint));
+    }
 }
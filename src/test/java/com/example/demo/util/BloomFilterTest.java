@@ -0,0 +1,62 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+    @Test
+    void mightContain_whenValueWasPut_returnsTrue() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+
+        filter.put("JohnDoe@mail.ru");
+
+        assertTrue(filter.mightContain("JohnDoe@mail.ru"));
+        assertFalse(filter.mightContain("AlexAlex@mail.ru"));
+    }
+
+    @Test
+    void mightContain_whenFilterIsFull_staysNearFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@mail.ru");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@mail.ru")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 200, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void put_whenCalledConcurrently_keepsEveryValue() throws Exception {
+        BloomFilter filter = new BloomFilter(80_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 10_000;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    filter.put("user" + (offset + i) + "@mail.ru");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < 80_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@mail.ru"));
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CacheTest {
+    @Test
+    void get_whenKeyWasPut_returnsValue() {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+
+        cache.put(1L, "one");
+
+        assertEquals("one", cache.get(1L));
+        assertTrue(cache.containsKey(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void put_whenKeyExists_replacesValueAndReturnsPrevious() {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+
+        cache.put(1L, "one");
+
+        assertEquals("one", cache.put(1L, "uno"));
+        assertEquals("uno", cache.get(1L));
+        assertEquals(1, cache.estimatedSize());
+    }
+
+    @Test
+    void remove_whenKeyExists_returnsValue() {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+
+        cache.put(1L, "one");
+
+        assertEquals("one", cache.remove(1L));
+        assertFalse(cache.containsKey(1L));
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    void put_whenSizeExceeded_evictsEntries() {
+        Cache<Long, Long> cache = Cache.<Long, Long>builder().maximumSize(100).build();
+
+        for (long i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(100, cache.estimatedSize());
+    }
+
+    @Test
+    void put_whenWeightExceeded_evictsEntries() {
+        Cache<Long, String> cache = Cache.<Long, String>builder()
+                .maximumSize(1000)
+                .maximumWeight(100)
+                .weigher((key, value) -> value.length())
+                .build();
+
+        for (long i = 0; i < 100; i++) {
+            cache.put(i, "0123456789");
+        }
+
+        assertTrue(cache.weightedSize() <= 100);
+    }
+
+    @Test
+    void put_whenScanFollowsHotKeys_keepsHotKeys() {
+        Cache<Long, Long> cache = Cache.<Long, Long>builder().maximumSize(100).build();
+
+        for (long i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (long i = 0; i < 50; i++) {
+                cache.get(i);
+            }
+            cache.cleanUp();
+        }
+        for (long i = 1000; i < 11000; i++) {
+            cache.put(i, i);
+        }
+
+        long retained = 0;
+        for (long i = 0; i < 50; i++) {
+            if (cache.containsKey(i)) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45, "Hot keys retained: " + retained);
+    }
+
+    @Test
+    void get_whenExpiredAfterWrite_returnsNull() {
+        AtomicLong time = new AtomicLong();
+        Cache<Long, String> cache = Cache.<Long, String>builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .build();
+
+        cache.put(1L, "one");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertEquals("one", cache.get(1L));
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    void get_whenIdleLongerThanExpireAfterAccess_returnsNull() {
+        AtomicLong time = new AtomicLong();
+        Cache<Long, String> cache = Cache.<Long, String>builder()
+                .maximumSize(10)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .build();
+
+        cache.put(1L, "one");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        assertEquals("one", cache.get(1L));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        assertEquals("one", cache.get(1L));
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertFalse(cache.containsKey(1L));
+    }
+
+    @Test
+    void put_whenCalledConcurrently_staysWithinBounds() throws Exception {
+        Cache<Long, Long> cache = Cache.<Long, Long>builder().maximumSize(500).build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            long offset = t * 10_000L;
+            futures.add(executor.submit(() -> {
+                for (long i = 0; i < 10_000; i++) {
+                    cache.put((offset + i) % 2000, i);
+                    cache.get(i % 2000);
+                    if (i % 7 == 0) {
+                        cache.remove((offset + i) % 2000);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        cache.cleanUp();
+
+        assertTrue(cache.estimatedSize() <= 500);
+        assertTrue(cache.estimatedSize() >= 0);
+    }
+
+    @Test
+    void get_whenLoadedConcurrently_mergesLoads() throws Exception {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        Future<String> first = executor.submit(() -> cache.get(1L, key -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "one";
+        }));
+        started.await();
+
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(executor.submit(() -> cache.get(1L, key -> {
+                calls.incrementAndGet();
+                return "other";
+            })));
+        }
+        while (cache.mergedLoadCount() < 3) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("one", first.get());
+        for (Future<String> waiter : waiters) {
+            assertEquals("one", waiter.get());
+        }
+        executor.shutdown();
+
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.loadCount());
+        assertEquals(3, cache.mergedLoadCount());
+        assertEquals("one", cache.get(1L));
+    }
+
+    @Test
+    void get_whenLoaderThrows_sharesExceptionAndCachesNothing() throws Exception {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("boom");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<String> first = executor.submit(() -> cache.get(1L, key -> {
+            started.countDown();
+            await(release);
+            throw failure;
+        }));
+        started.await();
+        Future<String> waiter = executor.submit(() -> cache.get(1L, key -> "other"));
+        while (cache.mergedLoadCount() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        Exception firstError = assertThrows(Exception.class, first::get);
+        Exception waiterError = assertThrows(Exception.class, waiter::get);
+        executor.shutdown();
+
+        assertSame(failure, firstError.getCause());
+        assertSame(failure, waiterError.getCause());
+        assertFalse(cache.containsKey(1L));
+    }
+
+    @Test
+    void putIfVersion_whenInvalidatedAfterVersionWasRead_rejectsValue() {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+
+        long version = cache.version(1L);
+        cache.invalidate(1L);
+
+        assertFalse(cache.putIfVersion(1L, "stale", version));
+        assertFalse(cache.containsKey(1L));
+        assertTrue(cache.putIfVersion(1L, "fresh", cache.version(1L)));
+        assertEquals("fresh", cache.get(1L));
+    }
+
+    @Test
+    void update_whenKeyIsPresent_replacesValueAndBumpsVersion() {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+        cache.put(1L, "one");
+        long version = cache.version(1L);
+
+        assertTrue(cache.update(1L, value -> value + "!"));
+        assertFalse(cache.update(2L, value -> value + "!"));
+
+        assertEquals("one!", cache.get(1L));
+        assertEquals(1, cache.estimatedSize());
+        assertFalse(cache.putIfVersion(1L, "stale", version));
+        assertEquals("one!", cache.get(1L));
+    }
+
+    @Test
+    void update_whenEntryIsPatched_keepsItsWriteTime() {
+        AtomicLong time = new AtomicLong();
+        Cache<Long, String> cache = Cache.<Long, String>builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .build();
+        cache.put(1L, "one");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        assertTrue(cache.update(1L, value -> value + "!"));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void update_whenRemappingReturnsNull_invalidatesEntry() {
+        Cache<Long, String> cache = Cache.<Long, String>builder().maximumSize(10).build();
+        cache.put(1L, "one");
+        long version = cache.version(1L);
+
+        assertFalse(cache.update(1L, value -> null));
+
+        assertFalse(cache.containsKey(1L));
+        assertNotEquals(version, cache.version(1L));
+    }
+
+    @Test
+    void removalListener_whenEntriesLeave_reportsCauseAndVersion() {
+        List<RemovalCause> causes = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        Cache<Long, String> cache = Cache.<Long, String>builder()
+                .maximumSize(1)
+                .removalListener((key, value, version, cause) -> {
+                    causes.add(cause);
+                    versions.add(version);
+                })
+                .build();
+
+        cache.put(1L, "one");
+        cache.put(1L, "uno");
+        cache.invalidate(1L);
+        cache.put(2L, "two");
+        cache.put(3L, "three");
+        cache.cleanUp();
+
+        assertEquals(List.of(RemovalCause.REPLACED, RemovalCause.EXPLICIT, RemovalCause.SIZE),
+                causes);
+        assertEquals(0L, versions.getFirst());
+    }
+
+    @Test
+    void hottestKeys_whenSomeKeysAreReadOften_returnsThemFirst() {
+        Cache<Long, Long> cache = Cache.<Long, Long>builder().maximumSize(100).build();
+        for (long i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 5; round++) {
+            cache.get(7L);
+            cache.get(3L);
+            cache.cleanUp();
+        }
+
+        List<Long> hottest = cache.hottestKeys(2);
+
+        assertEquals(2, hottest.size());
+        assertTrue(hottest.containsAll(List.of(3L, 7L)));
+    }
+
+    @Test
+    void stats_whenCacheIsUsed_countsHitsMissesLoadsAndEvictions() {
+        AtomicLong time = new AtomicLong();
+        Cache<Long, String> cache = Cache.<Long, String>builder()
+                .maximumSize(1)
+                .ticker(time::get)
+                .build();
+
+        cache.get(1L, key -> {
+            time.addAndGet(5);
+            return "one";
+        });
+        cache.get(1L);
+        assertThrows(IllegalStateException.class, () -> cache.get(2L, key -> {
+            throw new IllegalStateException("boom");
+        }));
+        cache.put(3L, "three");
+        cache.cleanUp();
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(2, cache.loadCount());
+        assertEquals(1, cache.loadFailureCount());
+        assertEquals(5, cache.totalLoadTime());
+        assertEquals(1, cache.removalCount(RemovalCause.SIZE));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
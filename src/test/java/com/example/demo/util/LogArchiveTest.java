@@ -0,0 +1,122 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void extract_whenDateWasRotated_mergesSegmentsInOrder() throws IOException {
+        Path file = directory.resolve("app.log");
+        writeGzip(directory.resolve("app.log.2025-04-06.0.gz"),
+                "2025-04-06T23:00:00.000 INFO before\n");
+        writeGzip(directory.resolve("app.log.2025-04-07.0.gz"),
+                "2025-04-07T01:00:00.000 INFO first\n"
+                        + "2025-04-07T02:00:00.000 ERROR failed\n\tat Foo.bar(Foo.java:1)\n");
+        Files.writeString(directory.resolve("app.log.2025-04-07.1"),
+                "2025-04-07T12:00:00.000 INFO second\n");
+        Files.writeString(file, "2025-04-07T23:00:00.000 INFO third\n"
+                + "2025-04-08T00:00:00.000 INFO after\n");
+        Files.writeString(directory.resolve("other.log.2025-04-07.0"),
+                "2025-04-07T05:00:00.000 INFO unrelated\n");
+        AtomicLong lastCopied = new AtomicLong();
+        AtomicLong lastTotal = new AtomicLong();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (LogArchive archive = new LogArchive(new LogIndex(file, 16), 2)) {
+            long written = archive.extract("2025-04-07", "2025-04-08", Channels.newChannel(out),
+                    (copied, total) -> {
+                        lastCopied.set(copied);
+                        lastTotal.set(total);
+                    });
+
+            assertEquals(out.size(), written);
+        }
+
+        assertEquals("2025-04-07T01:00:00.000 INFO first\n"
+                + "2025-04-07T02:00:00.000 ERROR failed\n\tat Foo.bar(Foo.java:1)\n"
+                + "2025-04-07T12:00:00.000 INFO second\n"
+                + "2025-04-07T23:00:00.000 INFO third\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals(lastTotal.get(), lastCopied.get());
+    }
+
+    @Test
+    void extract_whenOutputFails_leavesNoFilteredSegmentsBehind() throws IOException {
+        Path file = directory.resolve("app.log");
+        Files.writeString(directory.resolve("app.log.2025-04-07.0"),
+                "2025-04-07T01:00:00.000 INFO first\n");
+        Files.writeString(directory.resolve("app.log.2025-04-07.1"),
+                "2025-04-07T02:00:00.000 INFO second\n".repeat(200_000));
+        Set<Path> before = filteredSegments();
+        WritableByteChannel broken = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer source) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (LogArchive archive = new LogArchive(new LogIndex(file, 16), 2)) {
+            assertThrows(IOException.class, () -> archive.extract("2025-04-07", "2025-04-08",
+                    broken, (copied, total) -> {}));
+        }
+
+        assertEquals(before, filteredSegments());
+    }
+
+    @Test
+    void segments_whenIndexesExceedNine_sortsThemNumerically() throws IOException {
+        Path file = directory.resolve("app.log");
+        for (int i : new int[] {10, 2, 1}) {
+            Files.writeString(directory.resolve("app.log.2025-04-07." + i), "");
+        }
+
+        try (LogArchive archive = new LogArchive(new LogIndex(file, 16), 1)) {
+            assertEquals(List.of("app.log.2025-04-07.1", "app.log.2025-04-07.2",
+                            "app.log.2025-04-07.10"),
+                    archive.segments("2025-04-07", "2025-04-08").stream()
+                            .map(path -> path.getFileName().toString())
+                            .toList());
+        }
+    }
+
+    private static Set<Path> filteredSegments() throws IOException {
+        Path temp = Path.of(System.getProperty("java.io.tmpdir"));
+        try (Stream<Path> files = Files.list(temp)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("log-segment"))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private static void writeGzip(Path path, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
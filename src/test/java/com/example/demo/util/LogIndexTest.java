@@ -0,0 +1,111 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogIndexTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void extract_whenRangeIsInTheMiddle_returnsOnlyItsLines() throws IOException {
+        Path file = directory.resolve("app.log");
+        List<String> lines = new ArrayList<>();
+        for (int day = 6; day <= 8; day++) {
+            for (int i = 0; i < 100; i++) {
+                lines.add(line(day, i));
+            }
+        }
+        Files.write(file, lines);
+        LogIndex index = new LogIndex(file, 256);
+
+        String extracted = extract(index, "2025-04-07", "2025-04-08");
+
+        assertEquals(String.join("\n", lines.subList(100, 200)) + "\n", extracted);
+        assertTrue(index.entryCount() > 1);
+    }
+
+    @Test
+    void extract_whenLineHasContinuation_keepsItWithItsRecord() throws IOException {
+        Path file = directory.resolve("app.log");
+        Files.writeString(file, line(6, 0) + "\n"
+                + line(7, 0) + "\n"
+                + "java.lang.IllegalStateException: boom\n"
+                + "\tat com.example.demo.Foo.bar(Foo.java:1)\n"
+                + line(8, 0) + "\n");
+
+        String extracted = extract(new LogIndex(file, 16), "2025-04-07", "2025-04-08");
+
+        assertEquals(line(7, 0) + "\n"
+                + "java.lang.IllegalStateException: boom\n"
+                + "\tat com.example.demo.Foo.bar(Foo.java:1)\n", extracted);
+    }
+
+    @Test
+    void extract_whenFileGrowsOrIsRotated_followsIt() throws IOException {
+        Path file = directory.resolve("app.log");
+        Files.writeString(file, line(7, 0) + "\n" + line(7, 1));
+        LogIndex index = new LogIndex(file, 16);
+
+        assertEquals(line(7, 0) + "\n", extract(index, "2025-04-07", "2025-04-08"));
+
+        Files.writeString(file, "\n" + line(7, 2) + "\n", StandardOpenOption.APPEND);
+        assertEquals(line(7, 0) + "\n" + line(7, 1) + "\n" + line(7, 2) + "\n",
+                extract(index, "2025-04-07", "2025-04-08"));
+
+        Files.delete(file);
+        Files.writeString(file, line(8, 0) + "\n");
+        assertEquals("", extract(index, "2025-04-07", "2025-04-08"));
+        assertEquals(line(8, 0) + "\n", extract(index, "2025-04-08", "2025-04-09"));
+    }
+
+    @Test
+    void locate_whenFileIsRotatedAfterOpen_doesNotReuseOldOffsets() throws IOException {
+        Path file = directory.resolve("app.log");
+        Files.writeString(file, lines(6, 20) + lines(7, 1));
+        LogIndex index = new LogIndex(file, 16);
+
+        try (FileChannel old = index.open()) {
+            Files.move(file, directory.resolve("app.log.2025-04-07.0"));
+            String before = line(6, 59) + "\n";
+            Files.writeString(file, before + lines(7, 40));
+
+            assertEquals(new LogIndex.Range(lines(6, 20).length(), old.size()),
+                    index.locate(old, "2025-04-07", "2025-04-08"));
+            try (FileChannel current = index.open()) {
+                assertEquals(new LogIndex.Range(before.length(), current.size()),
+                        index.locate(current, "2025-04-07", "2025-04-08"));
+            }
+        }
+    }
+
+    private static String extract(LogIndex index, String from, String to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.extract(from, to, Channels.newChannel(out));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String lines(int day, int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append(line(day, i)).append('\n');
+        }
+        return lines.toString();
+    }
+
+    private static String line(int day, int i) {
+        return String.format("2025-04-%02dT10:%02d:%02d.000+03:00  INFO 1 --- [main] message %d",
+                day, i / 60, i % 60, i);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.example.demo.component.DtoCodecs;
+import com.example.demo.dto.OrderResponseDto;
+import com.example.demo.dto.UserResponseDto;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OffHeapStoreTest {
+    @Test
+    void get_whenUserWasPut_decodesSameValues() {
+        try (OffHeapStore<UserResponseDto> store = new OffHeapStore<>(4096, DtoCodecs.USER)) {
+            OrderResponseDto order = new OrderResponseDto();
+            order.setId(10L);
+            order.setDescription("TV");
+            UserResponseDto user = new UserResponseDto();
+            user.setId(1L);
+            user.setName("John");
+            user.setOrders(List.of(order));
+
+            assertTrue(store.put(1L, user));
+            UserResponseDto decoded = store.get(1L);
+
+            assertEquals(1L, decoded.getId());
+            assertEquals("John", decoded.getName());
+            assertNull(decoded.getEmail());
+            assertEquals(10L, decoded.getOrders().getFirst().getId());
+            assertEquals("TV", decoded.getOrders().getFirst().getDescription());
+            assertNull(decoded.getOrders().getFirst().getPrice());
+        }
+    }
+
+    @Test
+    void put_whenCapacityExceeded_overwritesOldestEntries() {
+        try (OffHeapStore<UserResponseDto> store = new OffHeapStore<>(1024, DtoCodecs.USER)) {
+            for (long id = 0; id < 1000; id++) {
+                UserResponseDto user = new UserResponseDto();
+                user.setId(id);
+                user.setName("user-" + id);
+                assertTrue(store.put(id, user));
+            }
+
+            assertTrue(store.usedBytes() <= store.capacity());
+            assertNull(store.get(0L));
+            assertEquals("user-999", store.get(999L).getName());
+            assertTrue(store.size() < 1000);
+        }
+    }
+
+    @Test
+    void remove_whenKeyWasPut_forgetsEntry() {
+        try (OffHeapStore<UserResponseDto> store = new OffHeapStore<>(1024, DtoCodecs.USER)) {
+            UserResponseDto user = new UserResponseDto();
+            user.setId(1L);
+            store.put(1L, user);
+
+            store.remove(1L);
+
+            assertNull(store.get(1L));
+        }
+    }
+}